@@ -0,0 +1,16 @@
+-- Posts, User 의 id 를 IDENTITY(auto_increment) 에서 SEQUENCE(allocationSize = 50, pooled 옵티마이저)로 바꾸면서 필요한 테이블이다.
+-- MySQL/MariaDB 방언은 시퀀스를 쓰지 못하므로 하이버네이트가 posts_seq / user_seq 테이블의 next_val 로 id 구간을 받는다.
+-- 신규 버전을 배포하기 전에 한 번 실행한다. 이미 값이 있으면 다시 넣지 않는다.
+--
+-- pooled 옵티마이저는 next_val 을 받아 온 구간의 "마지막" id 로 보고 next_val - 49 부터 발급한다.
+-- 그래서 MAX(id) + 1 로 넣으면 이미 있는 id 부터 발급되어 PK 가 겹친다. 반드시 MAX(id) + allocationSize(50) 로 넣는다.
+
+CREATE TABLE IF NOT EXISTS posts_seq (next_val BIGINT);
+INSERT INTO posts_seq (next_val)
+SELECT COALESCE(MAX(id), 0) + 50 FROM posts
+WHERE NOT EXISTS (SELECT 1 FROM posts_seq);
+
+CREATE TABLE IF NOT EXISTS user_seq (next_val BIGINT);
+INSERT INTO user_seq (next_val)
+SELECT COALESCE(MAX(id), 0) + 50 FROM user
+WHERE NOT EXISTS (SELECT 1 FROM user_seq);
@@ -9,17 +9,18 @@ IDLE_PORT=$(find_idle_port)
 
 echo "> Health Check Start!"
 echo "> IDLE_PORT: $IDLE_PORT"
-echo "> curl -s http://localhost:$IDLE_PORT/profile "
-sleep 10
+echo "> curl -s http://localhost:$IDLE_PORT/actuator/health/readiness "
 
-for RETRY_COUNT in {1..10}
+# readiness 는 DB 연결, JPA, 화면 템플릿 초기화(ReadinessInitializer)와 데우기(WarmupRunner)가 끝나야 UP 이 된다.
+# 고정된 시간을 기다리지 않고 1초마다 확인해서 UP 이 되는 즉시 엔진엑스를 전환한다. (appspec.yml 의 timeout 60초 안에서 최대 50번)
+for RETRY_COUNT in {1..50}
 do
-  RESPONSE=$(curl -s http://localhost:${IDLE_PORT}/profile)
-  UP_COUNT=$(echo ${RESPONSE} | grep 'real' | wc -l)
+  RESPONSE=$(curl -s --max-time 1 http://localhost:${IDLE_PORT}/actuator/health/readiness)
+  UP_COUNT=$(echo ${RESPONSE} | grep '"status":"UP"' | wc -l)
 
   if [ ${UP_COUNT} -ge 1 ]
-  then # $up_count >= 1 ("real" 문자열이 있는지 검증)
-      echo "> Health check 성공"
+  then # $up_count >= 1 ("status":"UP" 문자열이 있는지 검증)
+      echo "> Health check 성공 (${RETRY_COUNT}번째 시도)"
       switch_proxy
       break
   else
@@ -27,13 +28,12 @@ do
       echo "> Health check: ${RESPONSE}"
   fi
 
-  if [ ${RETRY_COUNT} -eq 10 ]
+  if [ ${RETRY_COUNT} -eq 50 ]
   then
     echo "> Health check 실패. "
     echo "> 엔진엑스에 연결하지 않고 배포를 종료합니다."
     exit 1
   fi
 
-  echo "> Health check 연결 실패. 재시도..."
-  sleep 10
-done
\ No newline at end of file
+  sleep 1
+done
@@ -25,8 +25,23 @@ echo "> $JAR_NAME 실행"
 
 IDLE_PROFILE=$(find_idle_profile)
 
-echo "> $JAR_NAME 를 profile=$IDLE_PROFILE 로 실행합니다."
-nohup java -jar \
-    -Dspring.config.location=classpath:/application.properties,classpath:/application-$IDLE_PROFILE.properties,/home/ec2-user/app/application-oauth.properties,/home/ec2-user/app/application-real-db.properties \
-    -Dspring.profiles.active=$IDLE_PROFILE \
-    $JAR_NAME > $REPOSITORY/nohup.out 2>&1 &
\ No newline at end of file
+CONFIG_LOCATION=classpath:/application.properties,classpath:/application-$IDLE_PROFILE.properties,/home/ec2-user/app/application-oauth.properties,/home/ec2-user/app/application-real-db.properties
+CDS_DIR=$REPOSITORY/zip/cds
+
+# ./gradlew cdsArchive 로 만든 AppCDS 아카이브가 있으면 풀어 둔 jar 들로 실행한다. (JDK 11 이상, build.gradle 참고)
+# 빌드한 JDK 와 다르면 -Xshare:auto 가 아카이브를 쓰지 않고 그냥 시작한다.
+if [ -f $CDS_DIR/app.jsa ]
+then
+  echo "> $CDS_DIR 의 AppCDS 아카이브로 profile=$IDLE_PROFILE 로 실행합니다."
+  cd $CDS_DIR
+  nohup java -Xshare:auto -XX:SharedArchiveFile=app.jsa \
+      -Dspring.config.location=$CONFIG_LOCATION \
+      -Dspring.profiles.active=$IDLE_PROFILE \
+      -cp $(cat classpath.txt) com.jung.springbook.Application > $REPOSITORY/nohup.out 2>&1 &
+else
+  echo "> $JAR_NAME 를 profile=$IDLE_PROFILE 로 실행합니다."
+  nohup java -jar \
+      -Dspring.config.location=$CONFIG_LOCATION \
+      -Dspring.profiles.active=$IDLE_PROFILE \
+      $JAR_NAME > $REPOSITORY/nohup.out 2>&1 &
+fi
\ No newline at end of file
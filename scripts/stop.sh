@@ -7,13 +7,53 @@ source ${ABSDIR}/profile.sh
 IDLE_PORT=$(find_idle_port)
 
 echo "> $IDLE_PORT 에서 구동중인 애플리케이션 pid 확인"
-IDLE_PID=$(lsof -ti tcp:${IDLE_PORT})
+IDLE_PID=$(lsof -ti tcp:${IDLE_PORT} -sTCP:LISTEN)
 
 if [ -z ${IDLE_PID} ]
 then
   echo "> 현재 구동중인 애플리케이션이 없으므로 종료하지 않습니다."
+  exit 0
+fi
+
+# 1. 드레인 (DrainEndpoint) - readiness 를 내리고 SSE 구독을 끝낸 뒤, 처리 중인 요청이 0 이 될 때까지 최대 20초 기다린다.
+#    드레인 시작(POST)은 actuator 계정이 필요하다. 운영 설정 파일에서 찾지 못하면 드레인 없이 바로 종료한다.
+ACTUATOR_USER=$(grep -h '^actuator.user.name=' /home/ec2-user/app/*.properties 2>/dev/null | tail -n 1 | cut -d= -f2-)
+ACTUATOR_PASSWORD=$(grep -h '^actuator.user.password=' /home/ec2-user/app/*.properties 2>/dev/null | tail -n 1 | cut -d= -f2-)
+
+if [ -n "${ACTUATOR_PASSWORD}" ]
+then
+  echo "> 드레인 시작"
+  curl -s --max-time 5 -X POST -u "${ACTUATOR_USER:-actuator}:${ACTUATOR_PASSWORD}" http://localhost:${IDLE_PORT}/actuator/drain > /dev/null
+
+  for RETRY_COUNT in {1..20}
+  do
+    RESPONSE=$(curl -s --max-time 1 http://localhost:${IDLE_PORT}/actuator/drain)
+    if echo ${RESPONSE} | grep -q '"inFlight":0'
+    then
+      echo "> 처리 중인 요청이 없습니다. (${RESPONSE})"
+      break
+    fi
+    echo "> 처리 중인 요청을 기다립니다. (${RESPONSE})"
+    sleep 1
+  done
 else
-  echo "> kill -15 $IDLE_PID"
-  kill -15 ${IDLE_PID}
-  sleep 5
-fi
\ No newline at end of file
+  echo "> actuator.user.password 를 찾지 못해 드레인 없이 종료합니다."
+fi
+
+# 2. 종료 - kill -15 를 받으면 애플리케이션이 새 연결을 막고 남은 요청, 조회수 저장을 마친 뒤 커넥션 풀을 닫는다. (server.shutdown=graceful)
+#    정해진 시간이 지나도 끝나지 않으면 강제로 종료한다. (appspec.yml 의 timeout 60초 안에서)
+echo "> kill -15 $IDLE_PID"
+kill -15 ${IDLE_PID}
+
+for RETRY_COUNT in {1..30}
+do
+  if ! kill -0 ${IDLE_PID} 2>/dev/null
+  then
+    echo "> 종료되었습니다."
+    exit 0
+  fi
+  sleep 1
+done
+
+echo "> 정상 종료되지 않아 강제로 종료합니다. kill -9 $IDLE_PID"
+kill -9 ${IDLE_PID}
@@ -0,0 +1,46 @@
+package com.jung.springbook.benchmark;
+
+import com.jung.springbook.Application;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * 벤치마크용 애플리케이션 컨텍스트이다. 포크(JVM)마다 한 번 띄우고, 내장 H2 를 사용한다.
+ *
+ * (1) properties 는
+ * 측정에 영향을 주는 SQL 로그, 배너를 끄고, 소셜 로그인 설정은 테스트와 같은 가짜 값을 넣는다.
+ * 포트는 다른 프로세스와 겹치지 않도록 랜덤이다.
+ */
+@State(Scope.Benchmark)
+public class ApplicationState {
+
+    private ConfigurableApplicationContext context;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = new SpringApplicationBuilder(Application.class)
+                .properties( // (1)
+                        "server.port=0",
+                        "spring.main.banner-mode=off",
+                        "spring.jpa.show-sql=false",
+                        "logging.level.root=warn",
+                        "spring.security.oauth2.client.registration.google.client-id=jmh",
+                        "spring.security.oauth2.client.registration.google.client-secret=jmh",
+                        "spring.security.oauth2.client.registration.google.scope=profile,email")
+                .run();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    public <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+}
@@ -0,0 +1,71 @@
+package com.jung.springbook.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.jung.springbook.domain.posts.Posts;
+import com.jung.springbook.web.dto.PostsListResponseDto;
+import com.jung.springbook.web.dto.PostsResponseDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dto 생성과 Jackson 직렬화를 측정한다. 스프링 컨텍스트 없이 실행한다.
+ *
+ * (1) Jackson2ObjectMapperBuilder 는
+ * 스프링 부트와 같이 JavaTimeModule 을 등록하고, LocalDateTime 을 숫자 배열이 아닌 ISO 문자열로 쓰도록
+ * WRITE_DATES_AS_TIMESTAMPS 를 끈다. (spring.jackson 기본값과 같음)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DtoBenchmark {
+
+    private Posts posts;
+    private List<PostsListResponseDto> listPage;
+    private PostsResponseDto responseDto;
+    private ObjectWriter listWriter;
+    private ObjectWriter responseWriter;
+
+    @Setup
+    public void setup() {
+        posts = Fixtures.posts(1L);
+        listPage = Fixtures.listPage(20);
+        responseDto = new PostsResponseDto(posts);
+
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json() // (1)
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        listWriter = objectMapper.writerFor(objectMapper.getTypeFactory().constructCollectionType(List.class, PostsListResponseDto.class));
+        responseWriter = objectMapper.writerFor(PostsResponseDto.class);
+    }
+
+    @Benchmark
+    public PostsListResponseDto newPostsListResponseDto() {
+        return new PostsListResponseDto(posts);
+    }
+
+    @Benchmark
+    public PostsResponseDto newPostsResponseDto() {
+        return new PostsResponseDto(posts);
+    }
+
+    @Benchmark
+    public byte[] serializeListPage() throws Exception {
+        return listWriter.writeValueAsBytes(listPage);
+    }
+
+    @Benchmark
+    public byte[] serializePostsResponseDto() throws Exception {
+        return responseWriter.writeValueAsBytes(responseDto);
+    }
+}
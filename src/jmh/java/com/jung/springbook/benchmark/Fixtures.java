@@ -0,0 +1,62 @@
+package com.jung.springbook.benchmark;
+
+import com.jung.springbook.domain.BaseTimeEntity;
+import com.jung.springbook.domain.posts.Posts;
+import com.jung.springbook.web.dto.PostsListResponseDto;
+
+import java.lang.reflect.Field;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 벤치마크 입력 데이터이다. 랜덤 값 없이 index 로만 만들어서 실행할 때마다 같은 데이터로 측정한다.
+ *
+ * (1) posts 는
+ * DB 에서 읽은 것처럼 id, createdDate, modifiedDate 가 채워진 엔티티를 만든다. (필드는 JPA 가 채우므로 리플렉션으로 넣는다)
+ */
+final class Fixtures {
+
+    static final LocalDateTime MODIFIED_DATE = LocalDateTime.of(2021, 1, 1, 12, 30, 15, 123_000_000);
+
+    private Fixtures() {
+    }
+
+    static String content(int index) {
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 20; i++) {
+            content.append("스프링 부트로 시작하는 웹 서비스 본문 ").append(index).append(' ');
+        }
+        return content.toString();
+    }
+
+    static Posts posts(long id) { // (1)
+        Posts posts = Posts.builder()
+                .title("title" + id)
+                .content(content((int) id))
+                .author("author" + (id % 10))
+                .build();
+        setField(Posts.class, posts, "id", id);
+        setField(BaseTimeEntity.class, posts, "createdDate", MODIFIED_DATE);
+        setField(BaseTimeEntity.class, posts, "modifiedDate", MODIFIED_DATE);
+        return posts;
+    }
+
+    static List<PostsListResponseDto> listPage(int size) {
+        List<PostsListResponseDto> page = new ArrayList<>();
+        for (long id = size; id > 0; id--) {
+            page.add(new PostsListResponseDto(id, "title" + id, "author" + (id % 10), MODIFIED_DATE));
+        }
+        return page;
+    }
+
+    private static void setField(Class<?> owner, Object target, String name, Object value) {
+        try {
+            Field field = owner.getDeclaredField(name);
+            field.setAccessible(true);
+            field.set(target, value);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.jung.springbook.benchmark;
+
+import com.samskivert.mustache.Mustache;
+import com.samskivert.mustache.Template;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 메인 화면 템플릿 렌더링을 측정한다.
+ *
+ * (1) compiler 는
+ * 스프링 부트의 MustacheResourceTemplateLoader 와 같이 classpath:/templates/ 에서 .mustache 파일을 읽는다. (layout/header 등 partial 포함)
+ *
+ * (2) renderPostsTable 은
+ * 캐시가 비었을 때 만드는 게시글 목록 조각(posts-table.mustache)이고,
+ * renderIndex 는 캐시된 조각을 넣어 매 요청 렌더링하는 나머지 화면(index.mustache)이다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MustacheBenchmark {
+
+    private Template postsTable;
+    private Template index;
+    private Map<String, Object> postsTableContext;
+    private Map<String, Object> indexContext;
+
+    @Setup
+    public void setup() {
+        Mustache.Compiler compiler = Mustache.compiler().withLoader(name -> new InputStreamReader( // (1)
+                MustacheBenchmark.class.getResourceAsStream("/templates/" + name + ".mustache"), StandardCharsets.UTF_8));
+
+        postsTable = compiler.loadTemplate("posts-table");
+        index = compiler.loadTemplate("index");
+
+        postsTableContext = new HashMap<>();
+        postsTableContext.put("posts", Fixtures.listPage(20));
+        postsTableContext.put("nextCursor", 1L);
+
+        indexContext = new HashMap<>();
+        indexContext.put("postsTable", postsTable.execute(postsTableContext));
+        indexContext.put("loginuserName", "user");
+    }
+
+    @Benchmark
+    public String renderPostsTable() { // (2)
+        return postsTable.execute(postsTableContext);
+    }
+
+    @Benchmark
+    public String renderIndex() {
+        return index.execute(indexContext);
+    }
+}
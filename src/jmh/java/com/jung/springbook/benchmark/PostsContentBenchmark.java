@@ -0,0 +1,85 @@
+package com.jung.springbook.benchmark;
+
+import com.jung.springbook.domain.posts.PostsContentCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 게시글 본문 압축(PostsContentCodec)의 비용과 효과를 측정한다. 스프링 컨텍스트 없이 실행한다.
+ *
+ * (1) chars 는
+ * 본문 길이(글자 수)이다. 문장 목록에서 고정된 시드로 골라 만들기 때문에 매번 같은 본문으로 측정한다.
+ *
+ * (2) setup 은
+ * 저장되는 크기(DB 에서 한 번 읽을 때 오가는 바이트)를 압축 전후로 출력한다. (build/reports/jmh/human.txt)
+ *
+ * (3) compress 는 저장할 때, decompress 는 읽을 때 더해지는 시간이다.
+ * readPlain 은 압축하지 않은 본문을 읽을 때처럼 바이트를 문자열로 바꾸는 시간으로, decompress 와 비교하기 위해 둔다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PostsContentBenchmark {
+
+    private static final String[] SENTENCES = {
+            "스프링 부트와 AWS 로 혼자 구현하는 웹 서비스를 따라 만들고 있습니다. ",
+            "JPA 의 더티 체킹 덕분에 update 쿼리를 직접 작성하지 않아도 됩니다. ",
+            "Nginx 로 무중단 배포를 구성하면 배포 중에도 서비스가 멈추지 않습니다. ",
+            "테스트 코드는 given, when, then 으로 나누어 작성합니다. ",
+            "OAuth 2.0 으로 구글 로그인을 붙였고 세션은 데이터베이스에 저장합니다. ",
+            "Travis CI 와 CodeDeploy 로 빌드부터 배포까지 자동화했습니다. ",
+            "The quick brown fox jumps over the lazy dog. ",
+            "mustache 템플릿은 로직이 없어서 화면과 서버 코드가 잘 나뉩니다. "
+    };
+
+    @Param({"500", "5000", "20000"}) // (1)
+    public int chars;
+
+    private String content;
+    private byte[] plainBytes;
+    private String stored;
+
+    @Setup
+    public void setup() { // (2)
+        Random random = new Random(chars);
+        StringBuilder builder = new StringBuilder(chars + 100);
+        while (builder.length() < chars) {
+            builder.append(SENTENCES[random.nextInt(SENTENCES.length)]);
+            if (random.nextInt(5) == 0) {
+                builder.append(random.nextInt(100000)).append('\n');
+            }
+        }
+        content = builder.substring(0, chars);
+        plainBytes = content.getBytes(StandardCharsets.UTF_8);
+        stored = PostsContentCodec.compress(content, 0);
+
+        int storedBytes = stored.getBytes(StandardCharsets.UTF_8).length;
+        System.out.printf("%n[posts content] chars=%d plain=%d bytes stored=%d bytes (%.1f%%)%n",
+                chars, plainBytes.length, storedBytes, storedBytes * 100.0 / plainBytes.length);
+    }
+
+    @Benchmark
+    public String compress() { // (3)
+        return PostsContentCodec.compress(content, 0);
+    }
+
+    @Benchmark
+    public String decompress() {
+        return PostsContentCodec.decompress(stored);
+    }
+
+    @Benchmark
+    public String readPlain() {
+        return new String(plainBytes, StandardCharsets.UTF_8);
+    }
+}
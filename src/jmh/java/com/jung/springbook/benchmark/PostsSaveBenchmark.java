@@ -0,0 +1,68 @@
+package com.jung.springbook.benchmark;
+
+import com.jung.springbook.domain.posts.PostsRepository;
+import com.jung.springbook.service.posts.PostsService;
+import com.jung.springbook.web.dto.PostsSaveRequestDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 게시글 등록을 한 건씩(save) 했을 때와 한 번에(saveAll) 했을 때를 비교한다. 둘 다 50건 기준이다.
+ *
+ * (1) clear 는
+ * 반복(iteration)마다 테이블을 비워서 쌓인 행 수가 측정에 영향을 주지 않게 한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class PostsSaveBenchmark {
+
+    private static final int SIZE = 50;
+
+    private PostsService postsService;
+    private PostsRepository postsRepository;
+    private List<PostsSaveRequestDto> requestDtos;
+
+    @Setup(Level.Trial)
+    public void setup(ApplicationState application) {
+        postsService = application.getBean(PostsService.class);
+        postsRepository = application.getBean(PostsRepository.class);
+
+        requestDtos = new ArrayList<>();
+        for (int i = 0; i < SIZE; i++) {
+            requestDtos.add(PostsSaveRequestDto.builder()
+                    .title("title" + i)
+                    .content(Fixtures.content(i))
+                    .author("author")
+                    .build());
+        }
+    }
+
+    @TearDown(Level.Iteration) // (1)
+    public void clear() {
+        postsRepository.deleteAllInBatch();
+    }
+
+    @Benchmark
+    public void saveOneByOne() {
+        for (PostsSaveRequestDto requestDto : requestDtos) {
+            postsService.save(requestDto);
+        }
+    }
+
+    @Benchmark
+    public List<Long> saveAll() {
+        return postsService.saveAll(requestDtos);
+    }
+}
@@ -0,0 +1,74 @@
+package com.jung.springbook.benchmark;
+
+import com.jung.springbook.domain.posts.PostsRepository;
+import com.jung.springbook.service.posts.PostsService;
+import com.jung.springbook.web.dto.PostsListResponseDto;
+import com.jung.springbook.web.dto.PostsSaveRequestDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * PostsService 의 목록 조회를 시드된 H2 에서 측정한다.
+ *
+ * (1) rows 는
+ * 미리 넣어두는 게시글 수이다. 내용은 매번 같게(index 기반) 만들어서 측정 조건을 고정한다.
+ *
+ * (2) findAllEntities 는
+ * 엔티티 전체를 읽어 Dto 로 바꾸는 이전 방식이다. 프로젝션 조회(findAllDesc)와 비교하기 위해 둔다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PostsServiceBenchmark {
+
+    @Param({"1000"}) // (1)
+    public int rows;
+
+    private PostsService postsService;
+    private PostsRepository postsRepository;
+
+    @Setup(Level.Trial)
+    public void seed(ApplicationState application) {
+        postsService = application.getBean(PostsService.class);
+        postsRepository = application.getBean(PostsRepository.class);
+
+        List<PostsSaveRequestDto> requestDtos = new ArrayList<>();
+        for (int i = 0; i < rows; i++) {
+            requestDtos.add(PostsSaveRequestDto.builder()
+                    .title("title" + i)
+                    .content(Fixtures.content(i))
+                    .author("author" + (i % 10))
+                    .build());
+        }
+        postsService.saveAll(requestDtos);
+    }
+
+    @Benchmark
+    public List<PostsListResponseDto> findAllDesc() {
+        return postsService.findAllDesc();
+    }
+
+    @Benchmark
+    public List<PostsListResponseDto> findAllDescFirstPage() {
+        return postsService.findAllDesc(null, 20);
+    }
+
+    @Benchmark
+    public List<PostsListResponseDto> findAllEntities() { // (2)
+        return postsRepository.findAll().stream()
+                .map(PostsListResponseDto::new)
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,36 @@
+package com.jung.springbook.benchmark;
+
+import com.jung.springbook.web.ProfileController;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 무중단 배포 스크립트가 호출하는 /profile 을 측정한다. 배포 환경과 같이 real2, oauth, real-db 프로필을 켠다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ProfileControllerBenchmark {
+
+    private ProfileController controller;
+
+    @Setup
+    public void setup() {
+        StandardEnvironment env = new StandardEnvironment();
+        env.setActiveProfiles("oauth", "real-db", "real2");
+        controller = new ProfileController(env);
+    }
+
+    @Benchmark
+    public String profile() {
+        return controller.profile();
+    }
+}
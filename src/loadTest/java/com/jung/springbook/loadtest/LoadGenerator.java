@@ -0,0 +1,161 @@
+package com.jung.springbook.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.cookie.SM;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.util.EntityUtils;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 정해진 비율로 요청을 보내고 요청 종류별 지연 시간을 HdrHistogram 에 기록한다.
+ *
+ * (1) run 은
+ * i 번째 요청을 start + i * interval 에 시작하도록 예약한다. (open model)
+ * 앞 요청의 응답을 기다렸다가 다음 요청을 보내면(closed model) 서버가 느려질수록 요청도 덜 보내서 지연 시간이 실제보다 좋게 나온다.
+ *
+ * (2) 지연 시간은
+ * 실제로 요청을 보낸 시각이 아니라 보냈어야 하는 시각(intended)부터 잰다. (coordinated omission 보정)
+ * 워커가 모자라 대기한 시간도 사용자가 기다린 시간이기 때문이다.
+ *
+ * (3) delete 는
+ * 부하 테스트 중 등록된 게시글이 아직 없으면 get 으로 대신한다.
+ *
+ * (4) 2xx 가 아닌 응답과 예외는
+ * 오류로 센다. 오류 응답의 지연 시간도 히스토그램에 기록한다.
+ *
+ * (5) Recording 은
+ * run 한 번에 보낸 요청의 결과만 모은다. 각 요청은 예약될 때 정해진 Recording 에 기록하므로,
+ * warmup 의 마지막 요청이 측정 구간에 끝나더라도 측정 결과에 섞이지 않는다.
+ */
+final class LoadGenerator {
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+    private final CloseableHttpClient httpClient;
+    private final ExecutorService workers;
+    private final String baseUrl;
+    private final LoadTestFixtures fixtures;
+    private final Operation[] operations;
+    private final int[] cumulativeWeights;
+
+
+    LoadGenerator(CloseableHttpClient httpClient, ExecutorService workers, String baseUrl, LoadTestFixtures fixtures,
+                  Map<Operation, Integer> mix) {
+        this.httpClient = httpClient;
+        this.workers = workers;
+        this.baseUrl = baseUrl;
+        this.fixtures = fixtures;
+        this.operations = mix.keySet().toArray(new Operation[0]);
+        this.cumulativeWeights = new int[operations.length];
+
+        int sum = 0;
+        for (int i = 0; i < operations.length; i++) {
+            sum += mix.get(operations[i]);
+            cumulativeWeights[i] = sum;
+        }
+        if (sum <= 0) {
+            throw new IllegalArgumentException("loadtest.mix 의 비율 합이 0 입니다.");
+        }
+    }
+
+    Recording run(int rate, long durationNanos) { // (1)
+        Recording recording = new Recording(); // (5)
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+        long start = System.nanoTime();
+        long end = start + durationNanos;
+
+        for (long i = 0; ; i++) {
+            long intended = start + i * intervalNanos;
+            if (intended - end >= 0) {
+                break;
+            }
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            Operation operation = nextOperation();
+            workers.execute(() -> send(operation, intended, recording));
+        }
+        return recording;
+    }
+
+    private Operation nextOperation() {
+        int pick = ThreadLocalRandom.current().nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (pick < cumulativeWeights[i]) {
+                return operations[i];
+            }
+        }
+        return operations[operations.length - 1];
+    }
+
+    private void send(Operation operation, long intended, Recording recording) {
+        Long id = null;
+        if (operation == Operation.DELETE) {
+            id = fixtures.pollCreated();
+            if (id == null) {
+                operation = Operation.GET; // (3)
+            }
+        }
+        if (operation == Operation.GET || operation == Operation.PUT) {
+            id = fixtures.randomPostId();
+        }
+
+        HttpUriRequest request = operation.request(baseUrl, id);
+        request.setHeader(SM.COOKIE, fixtures.randomSessionCookie());
+
+        boolean success;
+        try (CloseableHttpResponse response = httpClient.execute(request)) {
+            int status = response.getStatusLine().getStatusCode();
+            String body = EntityUtils.toString(response.getEntity());
+            success = status >= 200 && status < 300;
+            if (success && operation == Operation.POST) {
+                fixtures.addCreated(Long.valueOf(body.trim()));
+            }
+        } catch (IOException | RuntimeException e) {
+            success = false;
+        }
+
+        long latencyMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - intended); // (2)
+        recording.histograms.get(operation).recordValue(Math.min(latencyMicros, HIGHEST_TRACKABLE_MICROS));
+        if (!success) {
+            recording.errors.get(operation).increment(); // (4)
+        }
+    }
+
+    static final class Recording {
+
+        private final Map<Operation, Histogram> histograms = new EnumMap<>(Operation.class);
+        private final Map<Operation, LongAdder> errors = new EnumMap<>(Operation.class);
+
+        private Recording() {
+            for (Operation operation : Operation.values()) {
+                histograms.put(operation, new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3));
+                errors.put(operation, new LongAdder());
+            }
+        }
+
+        Map<Operation, Histogram> getHistograms() {
+            Map<Operation, Histogram> copies = new EnumMap<>(Operation.class);
+            histograms.forEach((operation, histogram) -> copies.put(operation, histogram.copy()));
+            return copies;
+        }
+
+        Map<Operation, Long> getErrors() {
+            Map<Operation, Long> counts = new EnumMap<>(Operation.class);
+            errors.forEach((operation, count) -> counts.put(operation, count.sum()));
+            return counts;
+        }
+    }
+}
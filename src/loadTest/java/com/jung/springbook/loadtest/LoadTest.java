@@ -0,0 +1,93 @@
+package com.jung.springbook.loadtest;
+
+import com.jung.springbook.Application;
+import org.HdrHistogram.Histogram;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.springframework.boot.Banner;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 부하 테스트 진입점이다. ./gradlew loadTest 로 실행한다.
+ *
+ * (1) 애플리케이션은
+ * 같은 JVM 에서 임의의 포트로 띄운다. 소셜 로그인은 쓰지 않으므로 google 등록 정보는 가짜 값을 넣는다.
+ * 명령행 인자로 넘겨서 application.properties 보다 우선하게 한다.
+ *
+ * (2) warmup 동안의 결과는
+ * 버린다. JIT 컴파일, 커넥션 풀, 캐시가 채워지기 전의 지연 시간이 결과를 흐리지 않게 하기 위해서이다.
+ * run 은 마지막 요청을 예약하면 바로 돌아오므로, warmup 요청은 측정 구간에 끝나도 warmup 의 Recording 에 기록된다. (LoadGenerator 참고)
+ *
+ * (3) 워커와 커넥션 수는
+ * concurrency 로 같게 맞춘다. 커넥션을 얻으려고 기다리는 시간이 서버 지연 시간처럼 보이지 않게 하기 위해서이다.
+ */
+public class LoadTest {
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.fromSystemProperties();
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(Application.class) // (1)
+                .bannerMode(Banner.Mode.OFF)
+                .run("--server.port=0",
+                        "--spring.jpa.show-sql=false",
+                        "--spring.security.oauth2.client.registration.google.client-id=loadtest",
+                        "--spring.security.oauth2.client.registration.google.client-secret=loadtest",
+                        "--spring.security.oauth2.client.registration.google.scope=profile,email");
+
+        ExecutorService workers = Executors.newFixedThreadPool(options.getConcurrency());
+        CloseableHttpClient httpClient = HttpClients.custom() // (3)
+                .setMaxConnTotal(options.getConcurrency())
+                .setMaxConnPerRoute(options.getConcurrency())
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectTimeout(5000)
+                        .setSocketTimeout(30000)
+                        .build())
+                .disableCookieManagement()
+                .build();
+
+        try {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            LoadTestFixtures fixtures = LoadTestFixtures.create(context, options);
+            LoadGenerator generator = new LoadGenerator(httpClient, workers, "http://localhost:" + port, fixtures, options.getMix());
+
+            System.out.printf("warmup %ds, rate %d/s%n", options.getWarmup().getSeconds(), options.getRate());
+            generator.run(options.getRate(), options.getWarmup().toNanos()); // (2)
+
+            System.out.printf("measuring %ds, rate %d/s%n", options.getDuration().getSeconds(), options.getRate());
+            long start = System.nanoTime();
+            LoadGenerator.Recording recording = generator.run(options.getRate(), options.getDuration().toNanos());
+            workers.shutdown();
+            workers.awaitTermination(1, TimeUnit.MINUTES);
+            long elapsed = System.nanoTime() - start;
+
+            LoadTestResult result = new LoadTestResult(options, elapsed, recording.getHistograms(), recording.getErrors());
+            result.write(options.getOutput());
+            print(recording.getHistograms(), recording.getErrors());
+            System.out.println("results: " + options.getOutput().toAbsolutePath());
+        } finally {
+            workers.shutdownNow();
+            httpClient.close();
+            context.close();
+        }
+    }
+
+    private static void print(Map<Operation, Histogram> histograms, Map<Operation, Long> errors) {
+        System.out.printf("%-8s %10s %8s %10s %10s %10s %10s%n", "op", "requests", "errors", "p50(ms)", "p99(ms)", "p99.9(ms)", "max(ms)");
+        histograms.forEach((operation, histogram) -> System.out.printf("%-8s %10d %8d %10.2f %10.2f %10.2f %10.2f%n",
+                operation.name().toLowerCase(),
+                histogram.getTotalCount(),
+                errors.get(operation),
+                histogram.getValueAtPercentile(50) / 1000.0,
+                histogram.getValueAtPercentile(99) / 1000.0,
+                histogram.getValueAtPercentile(99.9) / 1000.0,
+                histogram.getMaxValue() / 1000.0));
+    }
+}
@@ -0,0 +1,105 @@
+package com.jung.springbook.loadtest;
+
+import com.jung.springbook.config.auth.dto.SessionUser;
+import com.jung.springbook.domain.user.Role;
+import com.jung.springbook.domain.user.User;
+import com.jung.springbook.domain.user.UserRepository;
+import com.jung.springbook.service.posts.PostsService;
+import com.jung.springbook.web.dto.PostsSaveRequestDto;
+import org.springframework.context.ApplicationContext;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.web.context.HttpSessionSecurityContextRepository;
+import org.springframework.session.Session;
+import org.springframework.session.SessionRepository;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 부하 테스트 전에 만들어 두는 로그인 세션과 게시글이다.
+ *
+ * (1) createSessions 는
+ * 소셜 로그인을 거치지 않고 세션 저장소에 로그인된 세션(ROLE_USER 권한, user 속성)을 직접 만든다.
+ * 실제 로그인과 같은 세션 저장소(JDBC + 로컬 캐시)를 쓰므로 요청마다 세션을 읽는 비용도 측정에 포함된다.
+ *
+ * (2) SESSION 쿠키 값은
+ * 스프링 세션의 기본 설정(DefaultCookieSerializer)과 같이 세션 id 를 Base64 로 인코딩한 값이다.
+ *
+ * (3) created 는
+ * 부하 테스트 중 post 로 등록된 게시글 id 이다. delete 는 여기서 하나씩 꺼내서 지운다.
+ */
+final class LoadTestFixtures {
+
+    private final List<String> sessionCookies;
+    private final List<Long> postIds;
+    private final ConcurrentLinkedDeque<Long> created = new ConcurrentLinkedDeque<>(); // (3)
+
+    private LoadTestFixtures(List<String> sessionCookies, List<Long> postIds) {
+        this.sessionCookies = sessionCookies;
+        this.postIds = postIds;
+    }
+
+    static LoadTestFixtures create(ApplicationContext context, LoadTestOptions options) {
+        return new LoadTestFixtures(createSessions(context, options.getSessions()), createPosts(context, options.getPosts()));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<String> createSessions(ApplicationContext context, int count) { // (1)
+        SessionRepository<Session> sessionRepository = context.getBean(SessionRepository.class);
+        UserRepository userRepository = context.getBean(UserRepository.class);
+
+        List<String> cookies = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            User user = userRepository.save(User.builder()
+                    .name("loadtest" + i)
+                    .email("loadtest" + i + "@loadtest.com")
+                    .role(Role.USER)
+                    .build());
+
+            UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
+                    user.getEmail(), null, AuthorityUtils.createAuthorityList(Role.USER.getKey()));
+
+            Session session = sessionRepository.createSession();
+            session.setAttribute("user", new SessionUser(user));
+            session.setAttribute(HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY, new SecurityContextImpl(authentication));
+            sessionRepository.save(session);
+
+            cookies.add("SESSION=" + Base64.getEncoder().encodeToString(session.getId().getBytes(StandardCharsets.UTF_8))); // (2)
+        }
+        return cookies;
+    }
+
+    private static List<Long> createPosts(ApplicationContext context, int count) {
+        List<PostsSaveRequestDto> requestDtos = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            requestDtos.add(PostsSaveRequestDto.builder()
+                    .title("load test " + i)
+                    .content("load test content " + i)
+                    .author("loadtest")
+                    .build());
+        }
+        return context.getBean(PostsService.class).saveAll(requestDtos);
+    }
+
+    String randomSessionCookie() {
+        return sessionCookies.get(ThreadLocalRandom.current().nextInt(sessionCookies.size()));
+    }
+
+    Long randomPostId() {
+        return postIds.get(ThreadLocalRandom.current().nextInt(postIds.size()));
+    }
+
+    void addCreated(Long id) {
+        created.add(id);
+    }
+
+    Long pollCreated() {
+        return created.poll();
+    }
+}
@@ -0,0 +1,101 @@
+package com.jung.springbook.loadtest;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * 부하 테스트 설정이다. ./gradlew loadTest -Dloadtest.xxx=... 로 바꿀 수 있다.
+ *
+ * (1) rate 는
+ * 초당 시작할 요청 수이다. 응답이 늦어져도 다음 요청은 예정된 시각에 시작한다. (open model)
+ *
+ * (2) mix 는
+ * 요청 종류별 비율이다. 예) index=40,get=40,post=10,put=8,delete=2
+ *
+ * (3) concurrency 는
+ * 동시에 처리 중일 수 있는 최대 요청 수(워커 스레드, 커넥션 수)이다. 모자라면 요청이 대기하고 그 시간도 지연 시간에 포함된다.
+ */
+final class LoadTestOptions {
+
+    private final int rate;
+    private final Duration warmup;
+    private final Duration duration;
+    private final int sessions;
+    private final int posts;
+    private final int concurrency;
+    private final Map<Operation, Integer> mix;
+    private final Path output;
+
+    private LoadTestOptions(int rate, Duration warmup, Duration duration, int sessions, int posts, int concurrency,
+                            Map<Operation, Integer> mix, Path output) {
+        this.rate = rate;
+        this.warmup = warmup;
+        this.duration = duration;
+        this.sessions = sessions;
+        this.posts = posts;
+        this.concurrency = concurrency;
+        this.mix = mix;
+        this.output = output;
+    }
+
+    static LoadTestOptions fromSystemProperties() {
+        return new LoadTestOptions(
+                Integer.getInteger("loadtest.rate", 100), // (1)
+                DurationStyle.detectAndParse(System.getProperty("loadtest.warmup", "10s")),
+                DurationStyle.detectAndParse(System.getProperty("loadtest.duration", "60s")),
+                Integer.getInteger("loadtest.sessions", 100),
+                Integer.getInteger("loadtest.posts", 1000),
+                Integer.getInteger("loadtest.concurrency", 256), // (3)
+                parseMix(System.getProperty("loadtest.mix", "index=40,get=40,post=10,put=8,delete=2")), // (2)
+                Paths.get(System.getProperty("loadtest.output", "build/reports/loadtest/results.json")));
+    }
+
+    private static Map<Operation, Integer> parseMix(String value) {
+        Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+        for (String entry : value.split(",")) {
+            String[] pair = entry.trim().split("=");
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("loadtest.mix 형식이 잘못되었습니다: " + entry);
+            }
+            mix.put(Operation.valueOf(pair[0].trim().toUpperCase()), Integer.parseInt(pair[1].trim()));
+        }
+        return mix;
+    }
+
+    int getRate() {
+        return rate;
+    }
+
+    Duration getWarmup() {
+        return warmup;
+    }
+
+    Duration getDuration() {
+        return duration;
+    }
+
+    int getSessions() {
+        return sessions;
+    }
+
+    int getPosts() {
+        return posts;
+    }
+
+    int getConcurrency() {
+        return concurrency;
+    }
+
+    Map<Operation, Integer> getMix() {
+        return mix;
+    }
+
+    Path getOutput() {
+        return output;
+    }
+}
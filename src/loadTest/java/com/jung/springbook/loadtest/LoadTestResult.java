@@ -0,0 +1,86 @@
+package com.jung.springbook.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 부하 테스트 결과이다. 요청 종류별 처리량과 지연 시간(p50, p99, p99.9, max)을 JSON 파일로 남긴다.
+ * 지연 시간은 요청이 시작되어야 했던 시각부터 응답을 다 읽은 시각까지이다. (coordinated omission 보정)
+ */
+final class LoadTestResult {
+
+    private final LoadTestOptions options;
+    private final long elapsedNanos;
+    private final Map<Operation, Histogram> histograms;
+    private final Map<Operation, Long> errors;
+
+    LoadTestResult(LoadTestOptions options, long elapsedNanos, Map<Operation, Histogram> histograms, Map<Operation, Long> errors) {
+        this.options = options;
+        this.elapsedNanos = elapsedNanos;
+        this.histograms = histograms;
+        this.errors = errors;
+    }
+
+    void write(Path output) throws IOException {
+        if (output.getParent() != null) {
+            Files.createDirectories(output.getParent());
+        }
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(output.toFile(), toMap());
+    }
+
+    Map<String, Object> toMap() {
+        double seconds = elapsedNanos / 1e9;
+        Histogram total = new Histogram(3);
+        long totalErrors = 0;
+
+        Map<String, Object> operations = new LinkedHashMap<>();
+        for (Map.Entry<Operation, Histogram> entry : histograms.entrySet()) {
+            Histogram histogram = entry.getValue();
+            long operationErrors = errors.getOrDefault(entry.getKey(), 0L);
+            total.add(histogram);
+            totalErrors += operationErrors;
+            operations.put(entry.getKey().name().toLowerCase(), summary(histogram, operationErrors, seconds));
+        }
+
+        Map<String, Object> config = new LinkedHashMap<>();
+        config.put("rate", options.getRate());
+        config.put("durationSeconds", options.getDuration().getSeconds());
+        config.put("warmupSeconds", options.getWarmup().getSeconds());
+        config.put("sessions", options.getSessions());
+        config.put("posts", options.getPosts());
+        config.put("concurrency", options.getConcurrency());
+        config.put("mix", options.getMix());
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("config", config);
+        result.put("elapsedSeconds", seconds);
+        result.put("total", summary(total, totalErrors, seconds));
+        result.put("operations", operations);
+        return result;
+    }
+
+    private static Map<String, Object> summary(Histogram histogram, long errors, double seconds) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("requests", histogram.getTotalCount());
+        summary.put("errors", errors);
+        summary.put("throughputPerSecond", histogram.getTotalCount() / seconds);
+        summary.put("p50Millis", millis(histogram.getValueAtPercentile(50)));
+        summary.put("p99Millis", millis(histogram.getValueAtPercentile(99)));
+        summary.put("p999Millis", millis(histogram.getValueAtPercentile(99.9)));
+        summary.put("maxMillis", millis(histogram.getMaxValue()));
+        summary.put("meanMillis", histogram.getMean() / TimeUnit.MILLISECONDS.toMicros(1));
+        return summary;
+    }
+
+    private static double millis(long micros) {
+        return micros / (double) TimeUnit.MILLISECONDS.toMicros(1);
+    }
+}
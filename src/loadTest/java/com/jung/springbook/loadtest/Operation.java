@@ -0,0 +1,60 @@
+package com.jung.springbook.loadtest;
+
+import org.apache.http.client.methods.HttpDelete;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpPut;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+
+/**
+ * 부하 테스트가 보내는 요청 종류이다. 결과는 종류별로 따로 집계한다.
+ *
+ * (1) get, put 은
+ * 시작할 때 미리 등록해 둔 게시글 중 하나를, delete 는 부하 테스트 중 post 로 등록된 게시글을 대상으로 한다.
+ * 그래서 get, put 이 이미 지워진 게시글을 요청하는 일은 없다.
+ */
+enum Operation {
+
+    INDEX {
+        @Override
+        HttpUriRequest request(String baseUrl, Long id) {
+            return new HttpGet(baseUrl + "/");
+        }
+    },
+    GET {
+        @Override
+        HttpUriRequest request(String baseUrl, Long id) { // (1)
+            return new HttpGet(baseUrl + "/api/v1/posts/" + id);
+        }
+    },
+    POST {
+        @Override
+        HttpUriRequest request(String baseUrl, Long id) {
+            HttpPost post = new HttpPost(baseUrl + "/api/v1/posts");
+            post.setEntity(json("{\"title\":\"load test\",\"content\":\"load test content\",\"author\":\"loadtest\"}"));
+            return post;
+        }
+    },
+    PUT {
+        @Override
+        HttpUriRequest request(String baseUrl, Long id) {
+            HttpPut put = new HttpPut(baseUrl + "/api/v1/posts/" + id);
+            put.setEntity(json("{\"title\":\"load test updated\",\"content\":\"load test content updated\"}"));
+            return put;
+        }
+    },
+    DELETE {
+        @Override
+        HttpUriRequest request(String baseUrl, Long id) {
+            return new HttpDelete(baseUrl + "/api/v1/posts/" + id);
+        }
+    };
+
+    abstract HttpUriRequest request(String baseUrl, Long id);
+
+    private static StringEntity json(String body) {
+        return new StringEntity(body, ContentType.APPLICATION_JSON);
+    }
+}
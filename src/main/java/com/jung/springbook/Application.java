@@ -2,6 +2,8 @@ package com.jung.springbook;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.context.ConfigurableApplicationContext;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
 
 /**
@@ -10,11 +12,24 @@ import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
  *
  * @EnableJpaAuditing 가 @SpringBootApplication 와 같이 있다보니 @WebMvcTest 에서도 스캔하게 된다.
  * 그래서 @EnableJpaAuditing 와 @SpringBootApplication 둘을 분리해준다. (따로 config 를 생성하여 사용.)
+ *
+ * (1) BufferingApplicationStartup 은
+ * 시작할 때 빈 생성, 설정 클래스 처리 등 단계별로 걸린 시간을 기록한다. POST /actuator/startup 으로 확인한다.
+ * 최대 2048개 단계만 기록하고, 조회하면 비운다.
+ *
+ * (2) cds.training 은
+ * AppCDS 아카이브를 만들 때(./gradlew cdsArchive) 시작 과정에서 로딩되는 클래스만 기록하고 바로 종료하기 위한 옵션이다.
  */
 //@EnableJpaAuditing // JPA Auditing 기능 활성화
 @SpringBootApplication
 public class Application {
     public static void main(String[] args) {
-        SpringApplication.run(Application.class, args);
+        SpringApplication application = new SpringApplication(Application.class);
+        application.setApplicationStartup(new BufferingApplicationStartup(2048)); // (1)
+        ConfigurableApplicationContext context = application.run(args);
+
+        if (Boolean.getBoolean("cds.training")) { // (2)
+            System.exit(SpringApplication.exit(context));
+        }
     }
 }
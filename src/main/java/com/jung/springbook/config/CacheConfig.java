@@ -0,0 +1,70 @@
+package com.jung.springbook.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import java.time.Duration;
+
+/**
+ * (1) @EnableCaching(order = Ordered.HIGHEST_PRECEDENCE) 는
+ * 캐시 어드바이스가 트랜잭션 어드바이스보다 바깥에서 실행되도록 한다.
+ * 캐시에 값이 있으면 트랜잭션(커넥션, 하이버네이트 세션)을 열지 않고 바로 반환하고,
+ * @CacheEvict 는 트랜잭션이 커밋된 뒤에 실행된다.
+ *
+ * (2) posts 캐시는
+ * 게시글 id 를 키로 PostsResponseDto 를 담는다. 개수(maximumSize)와 시간(expireAfterWrite) 기준으로 제거되고,
+ * recordStats() 로 hit/miss/eviction 횟수를 기록한다. 기록된 통계는 actuator 의 cache.gets, cache.evictions 메트릭으로 확인할 수 있다.
+ *
+ * (3) TransactionAwareCacheManagerProxy 는
+ * 트랜잭션 안에서 호출된 put/evict 를 커밋 이후로 미룬다. 롤백된 수정 때문에 캐시가 비워지거나 채워지는 일을 막는다.
+ *
+ * (4) postsTable 캐시는
+ * 메인 화면 게시글 목록의 렌더링된 HTML 조각을 커서별로 담는다. 게시글이 변경되면 통째로 비워지고(PostsTableRenderer 참고),
+ * 혹시 남은 이전 목록도 expireAfterWrite 안에 사라지도록 짧게 둔다.
+ *
+ * (5) userIds 캐시는
+ * 소셜 로그인 시 이메일로 사용자 id 를 찾는 캐시이다. (UserService 참고) 값이 바뀌지 않으므로 개수로만 제한한다.
+ */
+@Configuration
+@EnableCaching(order = Ordered.HIGHEST_PRECEDENCE) // (1)
+public class CacheConfig {
+
+    public static final String POSTS = "posts";
+    public static final String POSTS_TABLE = "postsTable";
+    public static final String USER_IDS = "userIds";
+
+    @Bean
+    public CacheManager cacheManager(@Value("${cache.posts.maximum-size:10000}") long postsMaximumSize,
+                                     @Value("${cache.posts.expire-after-write:10m}") Duration postsExpireAfterWrite,
+                                     @Value("${cache.posts-table.maximum-size:1000}") long postsTableMaximumSize,
+                                     @Value("${cache.posts-table.expire-after-write:30s}") Duration postsTableExpireAfterWrite,
+                                     @Value("${cache.user-ids.maximum-size:100000}") long userIdsMaximumSize) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+
+        cacheManager.registerCustomCache(POSTS, Caffeine.newBuilder() // (2)
+                .maximumSize(postsMaximumSize)
+                .expireAfterWrite(postsExpireAfterWrite)
+                .recordStats()
+                .build());
+
+        cacheManager.registerCustomCache(POSTS_TABLE, Caffeine.newBuilder() // (4)
+                .maximumSize(postsTableMaximumSize)
+                .expireAfterWrite(postsTableExpireAfterWrite)
+                .recordStats()
+                .build());
+
+        cacheManager.registerCustomCache(USER_IDS, Caffeine.newBuilder() // (5)
+                .maximumSize(userIdsMaximumSize)
+                .recordStats()
+                .build());
+
+        return new TransactionAwareCacheManagerProxy(cacheManager); // (3)
+    }
+}
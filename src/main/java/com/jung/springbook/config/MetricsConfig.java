@@ -0,0 +1,23 @@
+package com.jung.springbook.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * (1) TimedAspect 는
+ * @Timed 가 붙은 메소드의 실행 시간을 타이머로 기록한다. (PostsService, CustomOAuth2UserService)
+ *
+ * 그 외 메트릭은 스프링 부트가 자동으로 등록한다.
+ * HikariCP 커넥션 풀은 hikaricp.connections.active/idle/pending, 하이버네이트는 hibernate.* (generate_statistics 필요),
+ * 요청 시간은 http.server.requests, 템플릿 조각 렌더링은 posts.table.render, 세션 저장소는 session.repository 로 확인한다.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) { // (1)
+        return new TimedAspect(meterRegistry);
+    }
+}
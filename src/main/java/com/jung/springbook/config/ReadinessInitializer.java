@@ -0,0 +1,72 @@
+package com.jung.springbook.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.web.servlet.view.MustacheViewResolver;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.View;
+
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 트래픽을 받기 전에 첫 요청이 하게 될 초기화를 미리 한다.
+ * ApplicationRunner 가 모두 끝난 뒤에야 readiness 가 ACCEPTING_TRAFFIC 이 되므로
+ * /actuator/health/readiness 는 여기까지 끝나야 UP 으로 바뀐다. (scripts/health.sh 참고)
+ *
+ * (1) dataSource.getConnection() 은
+ * 커넥션 풀이 만들어져 있지 않으면 만들고, DB 에 실제로 연결되는지 확인한다. 실패하면 애플리케이션이 뜨지 않는다.
+ *
+ * (2) getMetamodel() 은
+ * JPA 메타모델(엔티티 매핑)이 모두 만들어졌는지 확인한다.
+ *
+ * (3) resolveViewName 은
+ * 머스테치 화면을 찾아 ViewResolver 캐시에 넣는다. 첫 화면 요청이 템플릿을 찾는 시간을 기다리지 않게 한다.
+ *
+ * (4) @Order 는
+ * 다른 ApplicationRunner(WarmupRunner)보다 먼저 실행되게 한다. DB 나 화면에 문제가 있으면 데우기 전에 실패한다.
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE) // (4)
+public class ReadinessInitializer implements ApplicationRunner {
+
+    private static final List<String> VIEWS = Arrays.asList("index", "posts-save", "posts-update", "posts-table");
+
+    private final DataSource dataSource;
+    private final EntityManagerFactory entityManagerFactory;
+    private final MustacheViewResolver mustacheViewResolver;
+
+    public ReadinessInitializer(DataSource dataSource, EntityManagerFactory entityManagerFactory, MustacheViewResolver mustacheViewResolver) {
+        this.dataSource = dataSource;
+        this.entityManagerFactory = entityManagerFactory;
+        this.mustacheViewResolver = mustacheViewResolver;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        long start = System.nanoTime();
+
+        try (Connection connection = dataSource.getConnection()) { // (1)
+            connection.isValid(1);
+        }
+
+        int entities = entityManagerFactory.getMetamodel().getEntities().size(); // (2)
+
+        for (String name : VIEWS) {
+            View view = mustacheViewResolver.resolveViewName(name, Locale.getDefault()); // (3)
+            if (view == null) {
+                throw new IllegalStateException("화면을 찾을 수 없습니다: " + name);
+            }
+        }
+
+        log.info("준비 완료: 엔티티 {}개, 화면 {}개 ({}ms)", entities, VIEWS.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+}
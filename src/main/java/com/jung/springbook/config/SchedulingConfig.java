@@ -0,0 +1,13 @@
+package com.jung.springbook.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * (1) @EnableScheduling 은
+ * @Scheduled 가 붙은 메소드를 주기적으로 실행한다. (ReplicaLagMonitor 등)
+ */
+@Configuration
+@EnableScheduling // (1)
+public class SchedulingConfig {
+}
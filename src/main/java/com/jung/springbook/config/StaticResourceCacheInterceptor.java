@@ -0,0 +1,34 @@
+package com.jung.springbook.config;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * 정적 파일 응답의 Cache-Control 을 정한다. (WebConfig 참고)
+ *
+ * (1) 내용 해시가 붙은 URL(index-{md5}.js) 은
+ * 내용이 바뀌면 URL 도 바뀌므로 1년 동안 저장하고 immutable 로 다시 확인하지도 않게 한다. 재방문 시 정적 파일 요청이 나가지 않는다.
+ * 스프링 5.3 의 CacheControl 에는 immutable 이 없어서 헤더 값에 직접 붙인다.
+ *
+ * (2) 해시가 없는 URL 은
+ * 예전 URL 로 들어오는 요청이므로 저장은 하되 매번 Last-Modified 로 다시 확인(no-cache)하게 한다.
+ */
+public class StaticResourceCacheInterceptor implements HandlerInterceptor {
+
+    private static final Pattern VERSIONED = Pattern.compile(".*-[0-9a-f]{32}\\.[^/]+$");
+    private static final String IMMUTABLE = CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().getHeaderValue() + ", immutable";
+    private static final String REVALIDATE = CacheControl.noCache().cachePublic().getHeaderValue();
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        boolean versioned = VERSIONED.matcher(request.getRequestURI()).matches();
+        response.setHeader(HttpHeaders.CACHE_CONTROL, versioned ? IMMUTABLE : REVALIDATE); // (1), (2)
+        return true;
+    }
+}
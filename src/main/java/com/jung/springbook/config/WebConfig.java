@@ -4,21 +4,61 @@ import com.jung.springbook.config.auth.LoginUserArgumentResolver;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.resource.EncodedResourceResolver;
+import org.springframework.web.servlet.resource.VersionResourceResolver;
 
 import java.util.List;
 
 /**
  * HandlerMethodArgumentResolver 는 항상 WebMvcConfigurer 의 addArgumentResolvers()를 통해 추가해야 한다.
  *
+ * (1) resourceChain(true) 는
+ * 요청 경로별로 찾은 정적 파일을 캐시해서 매번 파일 시스템/클래스패스를 찾지 않는다.
+ *
+ * (2) EncodedResourceResolver 는
+ * 브라우저가 Accept-Encoding 으로 gzip(br) 을 보내면 빌드할 때 미리 압축해 둔 index.js.gz(.br) 를 그대로 응답한다.
+ * 요청마다 압축하지 않고, 압축 파일이 없으면 원본을 응답한다. (build.gradle 의 processResources 참고)
+ *
+ * (3) VersionResourceResolver 는
+ * 파일 내용의 md5 를 URL 에 붙인다. (/js/app/index.js -> /js/app/index-{md5}.js)
+ * 화면에서는 ResourceUrlProvider 로 해시가 붙은 URL 을 만들어 쓴다. (StaticResourceUrlAdvice 참고)
+ *
+ * (4) StaticResourceCacheInterceptor 는
+ * 해시가 붙은 URL 은 1년 immutable, 아닌 URL 은 no-cache 로 Cache-Control 을 정한다.
  */
 @RequiredArgsConstructor
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
+
+    private static final String[] STATIC_DIRECTORIES = {"js", "css", "images"};
+
     private final LoginUserArgumentResolver loginUserArgumentResolver;
 
     @Override
     public void addArgumentResolvers(List<HandlerMethodArgumentResolver> argumentResolvers) {
         argumentResolvers.add(loginUserArgumentResolver);
     }
-}
\ No newline at end of file
+
+    @Override
+    public void addResourceHandlers(ResourceHandlerRegistry registry) {
+        for (String directory : STATIC_DIRECTORIES) {
+            registry.addResourceHandler("/" + directory + "/**")
+                    .addResourceLocations("classpath:/static/" + directory + "/")
+                    .resourceChain(true) // (1)
+                    .addResolver(new EncodedResourceResolver()) // (2)
+                    .addResolver(new VersionResourceResolver().addContentVersionStrategy("/**")); // (3)
+        }
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        InterceptorRegistration registration = registry.addInterceptor(new StaticResourceCacheInterceptor()); // (4)
+        for (String directory : STATIC_DIRECTORIES) {
+            registration.addPathPatterns("/" + directory + "/**");
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.jung.springbook.config.auth;
+
+import com.jung.springbook.config.shutdown.DrainEndpoint;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
+import org.springframework.boot.actuate.health.HealthEndpoint;
+import org.springframework.boot.actuate.info.InfoEndpoint;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpMethod;
+import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
+import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
+import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.crypto.factory.PasswordEncoderFactories;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.web.util.matcher.AndRequestMatcher;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.util.StringUtils;
+
+import java.util.UUID;
+
+/**
+ * /actuator/** 에 대한 보안 설정이다. 메트릭 수집기(프로메테우스)는 소셜 로그인을 할 수 없으므로 HTTP Basic 인증을 쓴다.
+ *
+ * (1) @Order(1) 은
+ * SecurityConfig(소셜 로그인)보다 먼저 적용되어, /actuator/** 요청은 이 설정만 따른다.
+ *
+ * (2) STATELESS 는
+ * 수집기가 주기적으로 호출할 때마다 세션(spring-session-jdbc)이 만들어지지 않게 한다.
+ *
+ * (3) health, info 는
+ * 배포 스크립트와 로드밸런서가 인증 없이 호출할 수 있도록 열어둔다.
+ *
+ * (4) actuator.user.password 가 없으면
+ * 임의의 비밀번호를 만들어 로그로 남긴다. 운영 환경에서는 반드시 설정한다.
+ *
+ * (5) drain 은
+ * 상태 조회(GET)만 열어둔다. 드레인 시작(POST)은 인증이 필요하다. (DrainEndpoint)
+ */
+@Order(1) // (1)
+@Configuration
+public class ActuatorSecurityConfig extends WebSecurityConfigurerAdapter {
+
+    private static final Logger log = LoggerFactory.getLogger(ActuatorSecurityConfig.class);
+    private static final String ROLE = "ACTUATOR";
+
+    private final String name;
+    private final String password;
+
+    public ActuatorSecurityConfig(@Value("${actuator.user.name:actuator}") String name,
+                                  @Value("${actuator.user.password:}") String password) {
+        this.name = name;
+        this.password = password;
+    }
+
+    @Override
+    protected void configure(AuthenticationManagerBuilder auth) throws Exception {
+        String rawPassword = password;
+        if (!StringUtils.hasText(rawPassword)) { // (4)
+            rawPassword = UUID.randomUUID().toString();
+            log.warn("actuator.user.password 가 없어 임의로 생성했습니다: {}", rawPassword);
+        }
+
+        PasswordEncoder passwordEncoder = PasswordEncoderFactories.createDelegatingPasswordEncoder();
+        auth.inMemoryAuthentication()
+                .passwordEncoder(passwordEncoder)
+                .withUser(name)
+                .password(passwordEncoder.encode(rawPassword))
+                .roles(ROLE);
+    }
+
+    @Override
+    protected void configure(HttpSecurity http) throws Exception {
+        http
+                .requestMatcher(EndpointRequest.toAnyEndpoint())
+                .csrf().disable()
+                .sessionManagement().sessionCreationPolicy(SessionCreationPolicy.STATELESS) // (2)
+                .and()
+                .authorizeRequests()
+                .requestMatchers(EndpointRequest.to(HealthEndpoint.class, InfoEndpoint.class)).permitAll() // (3)
+                .requestMatchers(new AndRequestMatcher(EndpointRequest.to(DrainEndpoint.class), new AntPathRequestMatcher("/**", HttpMethod.GET.name()))).permitAll() // (5)
+                .anyRequest().hasRole(ROLE)
+                .and()
+                .httpBasic();
+    }
+}
@@ -3,8 +3,12 @@ package com.jung.springbook.config.auth;
 import com.jung.springbook.config.auth.dto.OAuthAttributes;
 import com.jung.springbook.config.auth.dto.SessionUser;
 import com.jung.springbook.domain.user.User;
-import com.jung.springbook.domain.user.UserRepository;
+import com.jung.springbook.service.user.UserService;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.oauth2.client.userinfo.DefaultOAuth2UserService;
 import org.springframework.security.oauth2.client.userinfo.OAuth2UserRequest;
@@ -36,20 +40,36 @@ import java.util.Collections;
  *
  * (5) saveOrUpdate 는
  * 구글 사용자 정보가 업데이트 되었을 때를 대비하여 update 기능을 추가 해준 것이다.
- * 사용자의 이름이나 프로필 사진이 변경되면 User 엔티티에도 반영된다.
+ * 사용자의 이름이나 프로필 사진이 변경되면 User 엔티티에도 반영된다. (바뀌지 않았으면 쓰기를 하지 않는다. UserService 참고)
+ * 같은 사용자가 동시에 처음 로그인하면 한쪽은 email 유니크 인덱스 때문에 등록에 실패하므로,
+ * 그때는 먼저 등록된 사용자를 다시 조회해서 사용한다.
+ *
+ * (6) defaultOAuth2UserService 는
+ * 커넥션 풀을 쓰는 RestTemplate 을 가진 빈 하나를 같이 쓴다. (OAuth2HttpClientConfig 참고)
+ * 사용자 정보 요청 시간은 registrationId(google/naver/kakao) 별로 oauth2.user-info 타이머에 기록한다.
+ *
+ * (7) @Timed 는
+ * 사용자 정보 요청과 사용자 저장을 포함한 로그인 후처리 전체 시간을 oauth2.user.service 타이머에 기록한다.
+ *
+ * (8) @Lazy 는
+ * 첫 로그인 때 빈을 만든다. 시작 시간을 줄이기 위해서이다. (SecurityConfig 참고)
  */
+@Lazy // (8)
 @RequiredArgsConstructor
 @Service
 public class CustomOAuth2UserService implements OAuth2UserService<OAuth2UserRequest, OAuth2User> {
-    private final UserRepository userRepository;
+    private final UserService userService;
     private final HttpSession httpSession;
+    private final DefaultOAuth2UserService defaultOAuth2UserService;
+    private final MeterRegistry meterRegistry;
 
+    @Timed(value = "oauth2.user.service", percentiles = {0.5, 0.95, 0.99}, histogram = true) // (7)
     @Override
     public OAuth2User loadUser(OAuth2UserRequest userRequest) throws OAuth2AuthenticationException {
-        OAuth2UserService delegate = new DefaultOAuth2UserService();
-        OAuth2User oAuth2User = delegate.loadUser(userRequest);
-
         String registrationId = userRequest.getClientRegistration().getRegistrationId(); // (1)
+        OAuth2User oAuth2User = meterRegistry.timer("oauth2.user-info", "registrationId", registrationId)
+                .record(() -> defaultOAuth2UserService.loadUser(userRequest)); // (6)
+
         String userNameAttributeName = userRequest.getClientRegistration().getProviderDetails()
                 .getUserInfoEndpoint().getUserNameAttributeName(); // (2)
 
@@ -67,10 +87,10 @@ public class CustomOAuth2UserService implements OAuth2UserService<OAuth2UserRequ
 
 
     private User saveOrUpdate(OAuthAttributes attributes) { // (5)
-        User user = userRepository.findByEmail(attributes.getEmail())
-                .map(entity -> entity.update(attributes.getName(), attributes.getPicture()))
-                .orElse(attributes.toEntity());
-
-        return userRepository.save(user);
+        try {
+            return userService.saveOrUpdate(attributes);
+        } catch (DataIntegrityViolationException e) {
+            return userService.saveOrUpdate(attributes);
+        }
     }
 }
\ No newline at end of file
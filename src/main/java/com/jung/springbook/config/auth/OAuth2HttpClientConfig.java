@@ -0,0 +1,108 @@
+package com.jung.springbook.config.auth;
+
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.converter.FormHttpMessageConverter;
+import org.springframework.security.oauth2.client.endpoint.DefaultAuthorizationCodeTokenResponseClient;
+import org.springframework.security.oauth2.client.endpoint.OAuth2AccessTokenResponseClient;
+import org.springframework.security.oauth2.client.endpoint.OAuth2AuthorizationCodeGrantRequest;
+import org.springframework.security.oauth2.client.http.OAuth2ErrorResponseErrorHandler;
+import org.springframework.security.oauth2.client.userinfo.DefaultOAuth2UserService;
+import org.springframework.security.oauth2.core.http.converter.OAuth2AccessTokenResponseHttpMessageConverter;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 소셜 로그인(google/naver/kakao)의 토큰, 사용자 정보 요청에 쓰는 HTTP 클라이언트 설정이다.
+ * 로그인마다 새 RestTemplate 을 만들면 매번 TCP 연결과 TLS 핸드셰이크를 새로 하므로, 커넥션 풀을 가진 클라이언트 하나를 같이 쓴다.
+ *
+ * (1) PoolingHttpClientConnectionManager 는
+ * 제공자(호스트)별로 연결을 재사용한다. max-per-route 는 한 제공자에 동시에 열어둘 수 있는 연결 수이다.
+ *
+ * (2) RequestConfig 는
+ * 제공자가 느려져도 로그인 요청 스레드가 무한정 묶이지 않도록
+ * 연결(connect), 풀에서 연결 얻기(connection-request), 응답 읽기(read) 시간을 제한한다.
+ *
+ * (3) keepAliveStrategy 는
+ * 응답의 Keep-Alive 헤더가 있으면 그 시간(최대 keep-alive)만큼, 없으면 keep-alive 만큼 연결을 유지한다.
+ * 그보다 오래 쓰이지 않은 연결은 evictIdleConnections 로 정리한다.
+ *
+ * (4) OAuth2ErrorResponseErrorHandler 는
+ * DefaultOAuth2UserService 가 기본으로 쓰는 에러 핸들러이다. 제공자의 에러 응답을 OAuth2 에러로 바꿔준다.
+ *
+ * (5) accessTokenResponseClient 는
+ * 인가 코드로 토큰을 받아오는 요청이다. 사용자 정보 요청과 같은 제공자로 가므로 같은 커넥션 풀을 쓴다.
+ * 메시지 컨버터는 DefaultAuthorizationCodeTokenResponseClient 의 기본 구성과 같다.
+ *
+ * (6) @Lazy 는
+ * 이 설정의 빈을 모두 첫 로그인 때 만든다. 로그인하지 않는 요청에는 커넥션 풀이 필요 없기 때문이다.
+ */
+@Lazy // (6)
+@Configuration
+public class OAuth2HttpClientConfig {
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient oauth2HttpClient(@Value("${oauth2.http-client.max-total:50}") int maxTotal,
+                                                @Value("${oauth2.http-client.max-per-route:20}") int maxPerRoute,
+                                                @Value("${oauth2.http-client.connect-timeout:2s}") Duration connectTimeout,
+                                                @Value("${oauth2.http-client.connection-request-timeout:1s}") Duration connectionRequestTimeout,
+                                                @Value("${oauth2.http-client.read-timeout:5s}") Duration readTimeout,
+                                                @Value("${oauth2.http-client.keep-alive:60s}") Duration keepAlive) {
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager(); // (1)
+        connectionManager.setMaxTotal(maxTotal);
+        connectionManager.setDefaultMaxPerRoute(maxPerRoute);
+        connectionManager.setValidateAfterInactivity(2000);
+
+        RequestConfig requestConfig = RequestConfig.custom() // (2)
+                .setConnectTimeout((int) connectTimeout.toMillis())
+                .setConnectionRequestTimeout((int) connectionRequestTimeout.toMillis())
+                .setSocketTimeout((int) readTimeout.toMillis())
+                .build();
+
+        long keepAliveMillis = keepAlive.toMillis();
+
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .setKeepAliveStrategy((response, context) -> { // (3)
+                    long duration = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+                    return duration > 0 ? Math.min(duration, keepAliveMillis) : keepAliveMillis;
+                })
+                .evictExpiredConnections()
+                .evictIdleConnections(keepAliveMillis, TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    @Bean
+    public DefaultOAuth2UserService defaultOAuth2UserService(CloseableHttpClient oauth2HttpClient) {
+        RestTemplate restTemplate = new RestTemplate(new HttpComponentsClientHttpRequestFactory(oauth2HttpClient));
+        restTemplate.setErrorHandler(new OAuth2ErrorResponseErrorHandler()); // (4)
+
+        DefaultOAuth2UserService userService = new DefaultOAuth2UserService();
+        userService.setRestOperations(restTemplate);
+        return userService;
+    }
+
+    @Bean
+    public OAuth2AccessTokenResponseClient<OAuth2AuthorizationCodeGrantRequest> accessTokenResponseClient(CloseableHttpClient oauth2HttpClient) { // (5)
+        RestTemplate restTemplate = new RestTemplate(Arrays.asList(
+                new FormHttpMessageConverter(), new OAuth2AccessTokenResponseHttpMessageConverter()));
+        restTemplate.setRequestFactory(new HttpComponentsClientHttpRequestFactory(oauth2HttpClient));
+        restTemplate.setErrorHandler(new OAuth2ErrorResponseErrorHandler());
+
+        DefaultAuthorizationCodeTokenResponseClient tokenResponseClient = new DefaultAuthorizationCodeTokenResponseClient();
+        tokenResponseClient.setRestOperations(restTemplate);
+        return tokenResponseClient;
+    }
+}
@@ -2,10 +2,12 @@ package com.jung.springbook.config.auth;
 
 
 import com.jung.springbook.domain.user.Role;
-import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
+import org.springframework.security.oauth2.client.endpoint.OAuth2AccessTokenResponseClient;
+import org.springframework.security.oauth2.client.endpoint.OAuth2AuthorizationCodeGrantRequest;
 
 /**
  * (1) EnableWebSecurity 는
@@ -39,12 +41,26 @@ import org.springframework.security.config.annotation.web.configuration.WebSecur
  * (9) userService 는
  * 소셜 로그인 성공 시 후속 조치를 진행할 UserService 인터페이스의 구현체를 동록한다.
  * 리소스 서버(즉, 소셜서비스들)에서 사용자 정보를 가져온 상태에서 추가로 진행하고자 하는 기능을 명시가 가능하다.
+ *
+ * (10) tokenEndpoint() 는
+ * 인가 코드로 액세스 토큰을 받아오는 요청의 설정이다. 커넥션 풀을 쓰는 클라이언트로 바꾼다. (OAuth2HttpClientConfig 참고)
+ *
+ * (11) @Lazy 는
+ * 소셜 로그인에만 쓰는 빈(HTTP 커넥션 풀, 사용자 서비스)을 시작할 때 만들지 않고 첫 로그인 때 만든다.
+ * 여기에는 프록시가 주입된다. DefaultAuthorizationCodeTokenResponseClient 는 final 클래스라 상속(CGLIB) 프록시를 만들 수 없으므로
+ * 인터페이스(OAuth2AccessTokenResponseClient) 타입으로 받는다.
  */
-@RequiredArgsConstructor
 @EnableWebSecurity // (1)
 public class SecurityConfig extends WebSecurityConfigurerAdapter {
 
     private final CustomOAuth2UserService customOAuth2UserService;
+    private final OAuth2AccessTokenResponseClient<OAuth2AuthorizationCodeGrantRequest> accessTokenResponseClient;
+
+    public SecurityConfig(@Lazy CustomOAuth2UserService customOAuth2UserService, // (11)
+                          @Lazy OAuth2AccessTokenResponseClient<OAuth2AuthorizationCodeGrantRequest> accessTokenResponseClient) {
+        this.customOAuth2UserService = customOAuth2UserService;
+        this.accessTokenResponseClient = accessTokenResponseClient;
+    }
 
     @Override
     protected void configure(HttpSecurity http) throws Exception {
@@ -53,7 +69,7 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
                 .headers().frameOptions().disable()// (2)
                 .and()
                 .authorizeRequests()// (3)
-                .antMatchers("/", "/css/**", "/images/**", "/js/**", "/h2-console/**", "/profile","/profile").permitAll() // (4)
+                .antMatchers("/", "/css/**", "/images/**", "/js/**", "/h2-console/**", "/profile","/profile", "/posts/events").permitAll() // (4)
                 .antMatchers("/api/v1/**").hasRole(Role.USER.name())
                 .anyRequest().authenticated() // (5)
                 .and()
@@ -61,6 +77,9 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
                 .logoutSuccessUrl("/") // (6)
                 .and()
                 .oauth2Login() // (7)
+                .tokenEndpoint() // (10)
+                .accessTokenResponseClient(accessTokenResponseClient)
+                .and()
                 .userInfoEndpoint() // (8)
                 .userService(customOAuth2UserService); // (9)
     }
@@ -0,0 +1,69 @@
+package com.jung.springbook.config.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * 읽기/쓰기 DataSource 분리 설정이다. spring.datasource.replica.hikari.jdbc-url 이 있을 때만 동작하고,
+ * 없으면 지금처럼 스프링 부트가 만든 DataSource 하나만 쓴다.
+ *
+ * (1) primaryDataSource 는
+ * 기존과 같은 spring.datasource.hikari.* 설정으로 만든다. 쓰기와 일반 트랜잭션, 세션 저장소가 사용한다.
+ *
+ * (2) replicaDataSource 는
+ * spring.datasource.replica.hikari.* 설정으로 만드는 별도 커넥션 풀이다. 읽기 전용 트랜잭션이 사용한다.
+ *
+ * (3) dataSource 는
+ * JPA, JdbcTemplate 등이 주입받는 대표(@Primary) DataSource 이다.
+ * ReadWriteRoutingDataSource 를 LazyConnectionDataSourceProxy 로 감싸서 트랜잭션의 읽기 전용 여부가 정해진 뒤에 커넥션을 고른다.
+ *
+ * (4) @DependsOn 은
+ * 두 커넥션 풀을 dataSource 보다 먼저 만든다. 스프링 부트는 DataSource 빈이 만들어질 때마다 대표 DataSource 로 초기화(schema.sql 등)를 실행하는데,
+ * dataSource 를 만드는 도중에 풀이 만들어지면 아직 만들어지지 않은 dataSource 를 찾게 되어 순환 참조로 실패한다.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "spring.datasource.replica.hikari", name = "jdbc-url")
+public class DataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari") // (1)
+    public HikariDataSource primaryDataSource() {
+        return DataSourceBuilder.create().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.replica.hikari") // (2)
+    public HikariDataSource replicaDataSource() {
+        return DataSourceBuilder.create().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public ReplicaLagMonitor replicaLagMonitor(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+                                               @Qualifier("replicaDataSource") DataSource replicaDataSource,
+                                               @Value("${spring.datasource.replica.max-lag:3s}") Duration maxLag) {
+        return new ReplicaLagMonitor(primaryDataSource, replicaDataSource, maxLag);
+    }
+
+    @Primary
+    @Bean
+    @DependsOn({"primaryDataSource", "replicaDataSource"}) // (4)
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+                                 @Qualifier("replicaDataSource") DataSource replicaDataSource,
+                                 ReplicaLagMonitor replicaLagMonitor) { // (3)
+        ReadWriteRoutingDataSource routingDataSource = new ReadWriteRoutingDataSource(primaryDataSource, replicaDataSource, replicaLagMonitor);
+        routingDataSource.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+}
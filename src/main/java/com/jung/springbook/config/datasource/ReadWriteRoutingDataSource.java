@@ -0,0 +1,46 @@
+package com.jung.springbook.config.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 현재 트랜잭션이 읽기 전용(@Transactional(readOnly = true))이면 replica, 아니면 primary 커넥션을 준다.
+ *
+ * (1) isReplicaAvailable() 이 false 이면
+ * 복제 지연이 기준보다 크거나 replica 를 확인할 수 없는 상태이므로 읽기 전용 트랜잭션도 primary 로 보낸다. (ReplicaLagMonitor 참고)
+ * hasSeenOwnWrites() 가 false 일 때도, 즉 이 인스턴스가 방금 쓴 게시글이 아직 replica 에 없을 수 있을 때도 primary 로 보낸다.
+ *
+ * (2) 트랜잭션의 읽기 전용 여부는
+ * 트랜잭션이 시작된 뒤에 정해지므로, 이 DataSource 는 LazyConnectionDataSourceProxy 로 감싸서
+ * 첫 쿼리를 실행할 때 커넥션을 고르게 한다. (DataSourceConfig 참고)
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    static final String PRIMARY = "primary";
+    static final String REPLICA = "replica";
+
+    private final ReplicaLagMonitor replicaLagMonitor;
+
+    public ReadWriteRoutingDataSource(DataSource primary, DataSource replica, ReplicaLagMonitor replicaLagMonitor) {
+        this.replicaLagMonitor = replicaLagMonitor;
+
+        Map<Object, Object> targetDataSources = new HashMap<>();
+        targetDataSources.put(PRIMARY, primary);
+        targetDataSources.put(REPLICA, replica);
+        setTargetDataSources(targetDataSources);
+        setDefaultTargetDataSource(primary);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() { // (2)
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly() && replicaLagMonitor.isReplicaAvailable()
+                && replicaLagMonitor.hasSeenOwnWrites()) { // (1)
+            return REPLICA;
+        }
+        return PRIMARY;
+    }
+}
@@ -0,0 +1,123 @@
+package com.jung.springbook.config.datasource;
+
+import com.jung.springbook.service.posts.PostsChangedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * replica 의 복제 지연을 주기적으로 확인한다.
+ *
+ * (1) replica_heartbeat 는
+ * primary 에 현재 시각(heartbeat)을 쓰고 replica 에서 읽어, replica 에 반영된 가장 최근 heartbeat 로 지연을 계산한다.
+ * DB 종류에 상관없이 같은 방식으로 측정할 수 있다. (MariaDB 의 SHOW SLAVE STATUS 같은 DB 전용 명령을 쓰지 않는다)
+ *
+ * (2) 지연은
+ * replica 가 마지막으로 쓴 heartbeat 를 이미 받았으면 0, 아니면 replica 에 있는 heartbeat 이후 지난 시간이다.
+ * 확인 주기(check-interval) 단위로 측정되므로 max-lag 는 확인 주기보다 크게 둔다.
+ *
+ * (3) 확인에 실패하거나 지연이 max-lag 를 넘으면
+ * replica 를 쓰지 않는다. 애플리케이션이 뜬 직후에도 첫 확인이 끝날 때까지는 primary 만 쓴다.
+ *
+ * (4) onPostsChanged 는
+ * 이 인스턴스가 게시글을 바꾼 트랜잭션을 기록한다. 트랜잭션이 진행 중이거나, 커밋된 뒤 그 시각보다 늦은 heartbeat 가
+ * replica 에 보이기 전까지는 hasSeenOwnWrites() 가 false 라서 읽기 전용 트랜잭션도 primary 에서 읽는다.
+ * 그래서 방금 수정한 게시글이 수정 전 값으로 캐시되거나 ETag 로 쓰이지 않고, 그 외의 조회는 계속 replica 로 간다.
+ * heartbeat 는 커밋이 끝난 뒤에 쓴 것이어야 하므로 커밋 시각 + 1ms 이상인 heartbeat 를 기다린다.
+ */
+public class ReplicaLagMonitor {
+
+    private static final String CREATE_TABLE =
+            "CREATE TABLE IF NOT EXISTS replica_heartbeat (id INT NOT NULL PRIMARY KEY, beat BIGINT NOT NULL)";
+
+    private final JdbcTemplate primary;
+    private final JdbcTemplate replica;
+    private final long maxLagMillis;
+
+    private volatile boolean replicaAvailable;
+    private volatile long lagMillis = -1;
+    private volatile long replicaBeat;
+    private long lastBeat;
+
+    private final AtomicInteger writing = new AtomicInteger();
+    private final AtomicLong requiredBeat = new AtomicLong();
+
+    public ReplicaLagMonitor(DataSource primary, DataSource replica, Duration maxLag) {
+        this.primary = new JdbcTemplate(primary);
+        this.replica = new JdbcTemplate(replica);
+        this.maxLagMillis = maxLag.toMillis();
+    }
+
+    public boolean isReplicaAvailable() {
+        return replicaAvailable;
+    }
+
+    public long getLagMillis() {
+        return lagMillis;
+    }
+
+    public boolean hasSeenOwnWrites() {
+        return writing.get() == 0 && replicaBeat >= requiredBeat.get();
+    }
+
+    @EventListener
+    public void onPostsChanged(PostsChangedEvent event) { // (4)
+        if (!TransactionSynchronizationManager.isSynchronizationActive()
+                || TransactionSynchronizationManager.hasResource(this)) {
+            return;
+        }
+
+        TransactionSynchronizationManager.bindResource(this, Boolean.TRUE);
+        writing.incrementAndGet();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    long beat = System.currentTimeMillis() + 1;
+                    requiredBeat.accumulateAndGet(beat, Math::max);
+                }
+                writing.decrementAndGet();
+                TransactionSynchronizationManager.unbindResourceIfPossible(ReplicaLagMonitor.this);
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${spring.datasource.replica.check-interval:1000}")
+    public synchronized void check() {
+        long now = System.currentTimeMillis();
+
+        try {
+            if (lastBeat > 0) {
+                long replicaBeat = replica.queryForObject("SELECT beat FROM replica_heartbeat WHERE id = 1", Long.class);
+                long lag = replicaBeat >= lastBeat ? 0 : now - replicaBeat; // (2)
+
+                this.replicaBeat = replicaBeat;
+                lagMillis = lag;
+                replicaAvailable = lag <= maxLagMillis;
+            }
+
+            beat(now); // (1)
+        } catch (DataAccessException e) { // (3)
+            lagMillis = -1;
+            replicaAvailable = false;
+        }
+    }
+
+    private void beat(long now) {
+        if (lastBeat == 0) {
+            primary.execute(CREATE_TABLE);
+        }
+        if (primary.update("UPDATE replica_heartbeat SET beat = ? WHERE id = 1", now) == 0) {
+            primary.update("INSERT INTO replica_heartbeat (id, beat) VALUES (1, ?)", now);
+        }
+        lastBeat = now;
+    }
+}
@@ -0,0 +1,320 @@
+package com.jung.springbook.config.session;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.session.FindByIndexNameSessionRepository;
+import org.springframework.session.MapSession;
+import org.springframework.session.Session;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * JDBC 세션 저장소(JdbcIndexedSessionRepository) 앞에 두는 로컬 캐시(near-cache)이다.
+ * 세션 속성은 요청마다 읽지만 거의 바뀌지 않고, last_access_time 은 요청마다 바뀌지만 만료 판단에만 쓰인다는 점을 이용한다.
+ *
+ * (1) findById 는
+ * 캐시에 세션이 있으면 복사본(MapSession)을 돌려주고 DB 를 조회하지 않는다.
+ * 캐시는 expireAfterWrite 가 짧기 때문에 다른 인스턴스(8081/8082)에서 바뀐 세션도 그 시간 안에 다시 DB 에서 읽는다.
+ *
+ * (2) setAttribute, removeAttribute, changeSessionId, setMaxInactiveInterval 은
+ * 로그인/로그아웃처럼 드물게 일어나는 변경이므로, 그때만 DB 의 세션(JdbcSession)을 읽어 같은 변경을 적용하고 save 에서 바로 저장한다.
+ * 세션 id 변경(세션 고정 공격 방지)도 DB 세션이 만든 id 를 그대로 사용해야 하기 때문에 같은 방식으로 처리한다.
+ *
+ * (3) lastAccessedTime 은
+ * 캐시에만 반영하고, DB 에 마지막으로 저장한 시각보다 writeInterval 이상 지났을 때만 한 번 저장한다.
+ * 캐시 항목(Entry)의 시각만 그 자리에서 바꾸고 항목을 다시 넣지 않으므로 expireAfterWrite 가 요청마다 연장되지 않는다.
+ * 요청이 많은 사용자도 writeInterval 마다 한 번만 UPDATE 가 일어난다.
+ * DB 의 만료 시각은 최대 writeInterval 만큼 이르게 기록되므로 writeInterval 은 세션 유효 시간보다 충분히 짧아야 한다.
+ *
+ * (4) deleteById 는
+ * 로그아웃 등으로 세션이 삭제되면 DB 와 함께 캐시에서도 바로 지운다.
+ *
+ * (5) session.repository 타이머는
+ * 요청마다 세션을 읽고(find) 저장하는(save) 데 걸린 시간이다. 느린 화면이 세션 때문인지 구분할 때 쓴다.
+ */
+public class CachingSessionRepository implements FindByIndexNameSessionRepository<CachingSessionRepository.CachedSession> {
+
+    private final FindByIndexNameSessionRepository<Session> delegate;
+    private final Cache<String, Entry> sessions;
+    private final Duration writeInterval;
+    private final Timer findTimer;
+    private final Timer saveTimer;
+
+    @SuppressWarnings("unchecked")
+    public CachingSessionRepository(FindByIndexNameSessionRepository<? extends Session> delegate, MeterRegistry meterRegistry,
+                                    long maximumSize, Duration expireAfterWrite, Duration writeInterval) {
+        this.delegate = (FindByIndexNameSessionRepository<Session>) delegate;
+        this.sessions = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        this.writeInterval = writeInterval;
+        this.findTimer = meterRegistry.timer("session.repository", "operation", "find"); // (5)
+        this.saveTimer = meterRegistry.timer("session.repository", "operation", "save");
+    }
+
+    Cache<String, Entry> getSessions() {
+        return sessions;
+    }
+
+    @Override
+    public CachedSession createSession() {
+        Session session = delegate.createSession();
+        return new CachedSession(new MapSession(session), session, null);
+    }
+
+    @Override
+    public void save(CachedSession session) {
+        saveTimer.record(() -> store(session));
+    }
+
+    @Override
+    public CachedSession findById(String id) { // (1)
+        return findTimer.record(() -> load(id));
+    }
+
+    private void store(CachedSession session) {
+        if (session.detached) {
+            sessions.invalidate(session.originalId);
+            return;
+        }
+
+        if (session.delegateSession == null) {
+            saveLastAccessedTime(session);
+            return;
+        }
+
+        Instant persistedLastAccessedTime = session.persistedLastAccessedTime; // (2)
+        if (isWriteDue(session)) {
+            session.delegateSession.setLastAccessedTime(session.getLastAccessedTime());
+            persistedLastAccessedTime = session.getLastAccessedTime();
+        }
+        delegate.save(session.delegateSession);
+
+        if (!session.getId().equals(session.originalId)) {
+            sessions.invalidate(session.originalId);
+        }
+        sessions.put(session.getId(), new Entry(session.snapshot, persistedLastAccessedTime));
+    }
+
+    private CachedSession load(String id) {
+        Entry entry = sessions.getIfPresent(id);
+        if (entry != null) {
+            MapSession snapshot = entry.snapshot();
+            if (!snapshot.isExpired()) {
+                return new CachedSession(snapshot, null, entry.getPersistedLastAccessedTime());
+            }
+            sessions.invalidate(id);
+        }
+
+        Session session = delegate.findById(id);
+        if (session == null) {
+            return null;
+        }
+
+        MapSession snapshot = new MapSession(session);
+        sessions.put(id, new Entry(snapshot, session.getLastAccessedTime()));
+        return new CachedSession(snapshot, null, session.getLastAccessedTime());
+    }
+
+    @Override
+    public void deleteById(String id) { // (4)
+        sessions.invalidate(id);
+        delegate.deleteById(id);
+    }
+
+    @Override
+    public Map<String, CachedSession> findByIndexNameAndIndexValue(String indexName, String indexValue) {
+        Map<String, CachedSession> result = new HashMap<>();
+        for (Map.Entry<String, ? extends Session> found : delegate.findByIndexNameAndIndexValue(indexName, indexValue).entrySet()) {
+            Session session = found.getValue();
+            result.put(found.getKey(), new CachedSession(new MapSession(session), null, session.getLastAccessedTime()));
+        }
+        return result;
+    }
+
+    private void saveLastAccessedTime(CachedSession session) { // (3)
+        Instant persistedLastAccessedTime = session.persistedLastAccessedTime;
+
+        if (isWriteDue(session)) {
+            Session delegateSession = delegate.findById(session.getId());
+            if (delegateSession == null) {
+                sessions.invalidate(session.getId());
+                return;
+            }
+            delegateSession.setLastAccessedTime(session.getLastAccessedTime());
+            delegate.save(delegateSession);
+            persistedLastAccessedTime = session.getLastAccessedTime();
+        }
+
+        Entry entry = sessions.asMap().get(session.getId());
+        if (entry != null) {
+            entry.accessed(session.getLastAccessedTime(), persistedLastAccessedTime);
+        }
+    }
+
+    private boolean isWriteDue(CachedSession session) {
+        return session.persistedLastAccessedTime == null
+                || Duration.between(session.persistedLastAccessedTime, session.getLastAccessedTime()).compareTo(writeInterval) >= 0;
+    }
+
+    private Session loadDelegate(String id) {
+        Session session = delegate.findById(id);
+        if (session == null) {
+            sessions.invalidate(id);
+        }
+        return session;
+    }
+
+    /**
+     * 캐시에 담는 값. 세션 복사본과 DB 에 마지막으로 저장된 lastAccessedTime 이다.
+     * 속성을 바꾸지 않은 요청은 동시에 다른 요청이 바꾼 속성을 덮어쓰지 않도록 accessed 로 시각만 갱신한다.
+     * 항목을 새로 넣으면 expireAfterWrite 가 다시 시작되므로 시각은 이 항목 안에서만 바꾼다.
+     */
+    static final class Entry {
+
+        private final MapSession session;
+        private Instant lastAccessedTime;
+        private Instant persistedLastAccessedTime;
+
+        private Entry(MapSession session, Instant persistedLastAccessedTime) {
+            this.session = new MapSession(session);
+            this.lastAccessedTime = session.getLastAccessedTime();
+            this.persistedLastAccessedTime = persistedLastAccessedTime;
+        }
+
+        private synchronized MapSession snapshot() {
+            MapSession snapshot = new MapSession(session);
+            snapshot.setLastAccessedTime(lastAccessedTime);
+            return snapshot;
+        }
+
+        private synchronized Instant getPersistedLastAccessedTime() {
+            return persistedLastAccessedTime;
+        }
+
+        private synchronized void accessed(Instant lastAccessedTime, Instant persistedLastAccessedTime) {
+            this.lastAccessedTime = latest(this.lastAccessedTime, lastAccessedTime);
+            this.persistedLastAccessedTime = latest(this.persistedLastAccessedTime, persistedLastAccessedTime);
+        }
+
+        private static Instant latest(Instant a, Instant b) {
+            if (a == null) {
+                return b;
+            }
+            if (b == null) {
+                return a;
+            }
+            return a.isAfter(b) ? a : b;
+        }
+    }
+
+    /**
+     * 요청 하나가 사용하는 세션이다. 읽기는 복사본(snapshot)에서 하고, 변경은 DB 세션(delegateSession)에도 똑같이 적용한다.
+     */
+    public final class CachedSession implements Session {
+
+        private final MapSession snapshot;
+        private final String originalId;
+        private final Instant persistedLastAccessedTime;
+        private Session delegateSession;
+        private boolean detached;
+
+        private CachedSession(MapSession snapshot, Session delegateSession, Instant persistedLastAccessedTime) {
+            this.snapshot = snapshot;
+            this.originalId = snapshot.getId();
+            this.delegateSession = delegateSession;
+            this.persistedLastAccessedTime = persistedLastAccessedTime;
+        }
+
+        @Override
+        public String getId() {
+            return snapshot.getId();
+        }
+
+        @Override
+        public String changeSessionId() {
+            Session session = writableDelegate();
+            String newId = session == null ? snapshot.changeSessionId() : session.changeSessionId();
+            snapshot.setId(newId);
+            return newId;
+        }
+
+        @Override
+        public <T> T getAttribute(String attributeName) {
+            return snapshot.getAttribute(attributeName);
+        }
+
+        @Override
+        public Set<String> getAttributeNames() {
+            return snapshot.getAttributeNames();
+        }
+
+        @Override
+        public void setAttribute(String attributeName, Object attributeValue) {
+            Session session = writableDelegate();
+            if (session != null) {
+                session.setAttribute(attributeName, attributeValue);
+            }
+            snapshot.setAttribute(attributeName, attributeValue);
+        }
+
+        @Override
+        public void removeAttribute(String attributeName) {
+            Session session = writableDelegate();
+            if (session != null) {
+                session.removeAttribute(attributeName);
+            }
+            snapshot.removeAttribute(attributeName);
+        }
+
+        @Override
+        public Instant getCreationTime() {
+            return snapshot.getCreationTime();
+        }
+
+        @Override
+        public void setLastAccessedTime(Instant lastAccessedTime) { // (3)
+            snapshot.setLastAccessedTime(lastAccessedTime);
+        }
+
+        @Override
+        public Instant getLastAccessedTime() {
+            return snapshot.getLastAccessedTime();
+        }
+
+        @Override
+        public void setMaxInactiveInterval(Duration interval) {
+            Session session = writableDelegate();
+            if (session != null) {
+                session.setMaxInactiveInterval(interval);
+            }
+            snapshot.setMaxInactiveInterval(interval);
+        }
+
+        @Override
+        public Duration getMaxInactiveInterval() {
+            return snapshot.getMaxInactiveInterval();
+        }
+
+        @Override
+        public boolean isExpired() {
+            return snapshot.isExpired();
+        }
+
+        private Session writableDelegate() { // (2)
+            if (delegateSession == null && !detached) {
+                delegateSession = loadDelegate(originalId);
+                detached = delegateSession == null;
+            }
+            return delegateSession;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.jung.springbook.config.session;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.session.JdbcSessionDataSourceInitializer;
+import org.springframework.boot.autoconfigure.session.JdbcSessionProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.session.jdbc.JdbcIndexedSessionRepository;
+import org.springframework.session.jdbc.config.annotation.web.http.EnableJdbcHttpSession;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * 세션 저장소 설정이다. JDBC 세션 저장소 앞에 CachingSessionRepository 를 둔다.
+ *
+ * (1) @EnableJdbcHttpSession 은
+ * JdbcIndexedSessionRepository 를 직접 등록한다. 세션 저장소 빈이 있으면 스프링 부트의 JDBC 세션 자동 설정은 동작하지 않으므로
+ * spring.session.jdbc.* 설정(JdbcSessionProperties)과 테이블 생성(JdbcSessionDataSourceInitializer)도 여기서 등록한다.
+ *
+ * (2) @Primary 는
+ * SessionRepositoryFilter 가 JdbcIndexedSessionRepository 대신 CachingSessionRepository 를 사용하게 한다.
+ * 만료 세션 정리 작업은 JdbcIndexedSessionRepository 가 그대로 맡는다.
+ *
+ * (3) session.cache.* 는
+ * expire-after-write 가 다른 인스턴스에서 바뀐 세션이 반영되기까지 걸리는 최대 시간이고,
+ * write-interval 은 last_access_time 을 DB 에 저장하는 최소 간격이다. 세션 유효 시간(기본 30분)보다 충분히 짧게 둔다.
+ *
+ * (4) name, cacheManager 태그는
+ * 스프링 부트가 등록하는 캐시 메트릭(cache.gets 등)과 태그 이름을 맞춘다. 태그 이름이 다르면 프로메테우스 레지스트리가 같은 이름의 메트릭을 등록하지 못한다.
+ */
+@Configuration
+@EnableJdbcHttpSession // (1)
+@EnableConfigurationProperties(JdbcSessionProperties.class)
+public class SessionConfig {
+
+    @Bean
+    public JdbcSessionDataSourceInitializer jdbcSessionDataSourceInitializer(DataSource dataSource, ResourceLoader resourceLoader,
+                                                                             JdbcSessionProperties properties) {
+        return new JdbcSessionDataSourceInitializer(dataSource, resourceLoader, properties);
+    }
+
+    @Primary // (2)
+    @Bean
+    public CachingSessionRepository cachingSessionRepository(JdbcIndexedSessionRepository sessionRepository, MeterRegistry meterRegistry,
+                                                             @Value("${session.cache.maximum-size:10000}") long maximumSize, // (3)
+                                                             @Value("${session.cache.expire-after-write:10s}") Duration expireAfterWrite,
+                                                             @Value("${session.cache.write-interval:60s}") Duration writeInterval) {
+        CachingSessionRepository repository = new CachingSessionRepository(sessionRepository, meterRegistry, maximumSize, expireAfterWrite, writeInterval);
+        CaffeineCacheMetrics.monitor(meterRegistry, repository.getSessions(), "sessions",
+                "name", "sessions", "cacheManager", "sessionRepository"); // (4)
+        return repository;
+    }
+}
@@ -0,0 +1,44 @@
+package com.jung.springbook.config.shutdown;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 배포 스크립트(scripts/stop.sh)가 종료 전에 호출한다.
+ *
+ * (1) POST /actuator/drain 은
+ * 드레인을 시작한다. actuator.user.* 계정의 인증이 필요하다. (ActuatorSecurityConfig)
+ *
+ * (2) GET /actuator/drain 은
+ * 상태(RUNNING, DRAINING, STOPPING)와 처리 중인 요청 수를 돌려준다. 인증 없이 조회할 수 있다.
+ * inFlight 가 0 이 되면 kill -15 로 종료해도 끊기는 요청이 없다.
+ */
+@Component
+@Endpoint(id = "drain")
+public class DrainEndpoint {
+
+    private final ShutdownCoordinator shutdownCoordinator;
+
+    public DrainEndpoint(ShutdownCoordinator shutdownCoordinator) {
+        this.shutdownCoordinator = shutdownCoordinator;
+    }
+
+    @WriteOperation // (1)
+    public Map<String, Object> drain() {
+        shutdownCoordinator.drain();
+        return status();
+    }
+
+    @ReadOperation // (2)
+    public Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("state", shutdownCoordinator.getState());
+        status.put("inFlight", shutdownCoordinator.getInFlight());
+        return status;
+    }
+}
@@ -0,0 +1,49 @@
+package com.jung.springbook.config.shutdown;
+
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 처리 중인 요청 수를 센다. 드레인 중에 배포 스크립트가 요청이 모두 끝났는지 확인할 때 쓴다. (DrainEndpoint)
+ *
+ * (1) 비동기 요청(SSE 구독)은
+ * 요청 스레드가 돌아오는 순간 끝난 것으로 센다. 열려 있는 구독은 드레인할 때 따로 끝낸다. (PostsEventStream)
+ *
+ * (2) /actuator/** 는
+ * 세지 않는다. 배포 스크립트가 상태를 조회하는 요청 자신이 처리 중인 요청으로 잡히지 않게 하기 위해서이다.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class InFlightRequestFilter extends OncePerRequestFilter {
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) { // (2)
+        return request.getRequestURI().startsWith(request.getContextPath() + "/actuator/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        inFlight.incrementAndGet();
+        try {
+            filterChain.doFilter(request, response); // (1)
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+}
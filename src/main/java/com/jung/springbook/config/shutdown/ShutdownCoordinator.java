@@ -0,0 +1,64 @@
+package com.jung.springbook.config.shutdown;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * 무중단 배포에서 인스턴스를 내리기 전에 트래픽을 비운다(drain).
+ *
+ * (1) drain 은
+ * readiness 를 REFUSING_TRAFFIC 으로 바꾼다. /actuator/health/readiness 가 503 이 되고,
+ * 이 이벤트를 받은 빈들이 남은 작업을 정리한다. (PostsEventStream 은 구독을 끝내고, PostsViewCounter 는 조회수를 저장한다)
+ * 이미 처리 중인 요청과 새로 들어오는 요청은 그대로 처리한다.
+ *
+ * (2) ContextClosedEvent 는
+ * kill -15 로 종료가 시작되면 웹 서버의 graceful shutdown(server.shutdown=graceful)보다 먼저 발행된다.
+ * 드레인을 거치지 않고 종료되어도 같은 정리를 한 뒤 톰캣이 새 연결을 막고 처리 중인 요청을 기다린다.
+ * 커넥션 풀(Hikari)은 그 다음에 빈이 정리될 때 닫힌다.
+ */
+@Slf4j
+@Component
+public class ShutdownCoordinator {
+
+    public enum State {
+        RUNNING, DRAINING, STOPPING
+    }
+
+    private final ApplicationEventPublisher eventPublisher;
+    private final InFlightRequestFilter inFlightRequestFilter;
+    private volatile State state = State.RUNNING;
+
+    public ShutdownCoordinator(ApplicationEventPublisher eventPublisher, InFlightRequestFilter inFlightRequestFilter) {
+        this.eventPublisher = eventPublisher;
+        this.inFlightRequestFilter = inFlightRequestFilter;
+    }
+
+    public synchronized void drain() { // (1)
+        if (state != State.RUNNING) {
+            return;
+        }
+        state = State.DRAINING;
+        log.info("드레인을 시작합니다. 처리 중인 요청: {}", inFlightRequestFilter.getInFlight());
+        AvailabilityChangeEvent.publish(eventPublisher, this, ReadinessState.REFUSING_TRAFFIC);
+    }
+
+    @EventListener(ContextClosedEvent.class) // (2)
+    public void onContextClosed() {
+        drain();
+        state = State.STOPPING;
+        log.info("종료를 시작합니다. 처리 중인 요청: {}", inFlightRequestFilter.getInFlight());
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public int getInFlight() {
+        return inFlightRequestFilter.getInFlight();
+    }
+}
@@ -0,0 +1,27 @@
+package com.jung.springbook.config.warmup;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * 마지막 데우기 결과(WarmupReport)를 /actuator/warmup 으로 보여준다.
+ * 다른 /actuator/** 와 같이 actuator.user.* 계정의 인증이 필요하다. (ActuatorSecurityConfig)
+ */
+@Component
+@ConditionalOnProperty(name = "warmup.enabled", havingValue = "true")
+@Endpoint(id = "warmup")
+public class WarmupEndpoint {
+
+    private final WarmupRunner warmupRunner;
+
+    public WarmupEndpoint(WarmupRunner warmupRunner) {
+        this.warmupRunner = warmupRunner;
+    }
+
+    @ReadOperation
+    public WarmupReport report() {
+        return warmupRunner.getReport();
+    }
+}
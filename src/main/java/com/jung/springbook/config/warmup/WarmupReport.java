@@ -0,0 +1,84 @@
+package com.jung.springbook.config.warmup;
+
+import lombok.Getter;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 데우기 결과이다. 요청 순서대로 같은 크기의 구간(window)으로 나누고 구간별 지연 시간(마이크로초)을 담는다.
+ */
+@Getter
+public class WarmupReport {
+
+    private final int iterations;
+    private final int failures;
+    private final long elapsedMillis;
+    private final List<Window> curve;
+
+    private WarmupReport(int iterations, int failures, long elapsedMillis, List<Window> curve) {
+        this.iterations = iterations;
+        this.failures = failures;
+        this.elapsedMillis = elapsedMillis;
+        this.curve = curve;
+    }
+
+    static WarmupReport of(long[] latencyNanos, int count, int failures, Duration elapsed, int windows) {
+        List<Window> curve = new ArrayList<>();
+        int size = Math.max(1, (count + windows - 1) / Math.max(1, windows));
+        for (int from = 0; from < count; from += size) {
+            int to = Math.min(count, from + size);
+            curve.add(Window.of(Arrays.copyOfRange(latencyNanos, from, to), from));
+        }
+        return new WarmupReport(count, failures, elapsed.toMillis(), Collections.unmodifiableList(curve));
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder()
+                .append(iterations).append("건, ").append(elapsedMillis).append("ms, 실패 ").append(failures).append("건, 구간별 p50/p99(us)");
+        for (Window window : curve) {
+            builder.append(' ').append(window.getP50Micros()).append('/').append(window.getP99Micros());
+        }
+        return builder.toString();
+    }
+
+    @Getter
+    public static class Window {
+
+        private final int fromIteration;
+        private final int toIteration;
+        private final long p50Micros;
+        private final long p99Micros;
+        private final long maxMicros;
+
+        private Window(int fromIteration, int toIteration, long p50Micros, long p99Micros, long maxMicros) {
+            this.fromIteration = fromIteration;
+            this.toIteration = toIteration;
+            this.p50Micros = p50Micros;
+            this.p99Micros = p99Micros;
+            this.maxMicros = maxMicros;
+        }
+
+        private static Window of(long[] latencyNanos, int fromIteration) {
+            Arrays.sort(latencyNanos);
+            return new Window(fromIteration, fromIteration + latencyNanos.length,
+                    micros(percentile(latencyNanos, 0.5)),
+                    micros(percentile(latencyNanos, 0.99)),
+                    micros(latencyNanos[latencyNanos.length - 1]));
+        }
+
+        private static long percentile(long[] sorted, double percentile) {
+            int index = (int) Math.ceil(percentile * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+        }
+
+        private static long micros(long nanos) {
+            return TimeUnit.NANOSECONDS.toMicros(nanos);
+        }
+    }
+}
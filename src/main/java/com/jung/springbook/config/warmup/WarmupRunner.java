@@ -0,0 +1,126 @@
+package com.jung.springbook.config.warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jung.springbook.service.posts.PostsService;
+import com.jung.springbook.web.dto.PostsListResponseDto;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 트래픽을 받기 전에 자주 쓰는 경로를 미리 여러 번 실행해서 JIT 컴파일과 캐시를 데워 둔다.
+ * ApplicationRunner 이므로 끝나야 readiness 가 UP 이 되고, 그 뒤에 엔진엑스가 이 포트로 전환된다. (scripts/health.sh)
+ *
+ * (1) warmup.enabled 는
+ * 배포 환경(application.properties)에서만 켠다. 테스트에서는 꺼서 컨텍스트가 빨리 뜨게 한다.
+ *
+ * (2) 요청은
+ * 메인 화면(/) 렌더링, 게시글 조회(서비스, posts 캐시), 목록 JSON 직렬화를 번갈아 실행한다.
+ * 메인 화면은 실제 포트(local.server.port)로 요청해서 톰캣, 필터, 압축까지 함께 데운다.
+ * 서비스를 직접 호출하므로 조회수(PostsViewCounter)는 늘어나지 않는다.
+ *
+ * (3) iterations, time-budget 는
+ * 실행할 최대 요청 수와 최대 시간이다. 먼저 도달한 쪽에서 멈춘다.
+ * time-budget 은 health.sh 의 대기 시간(50초)보다 충분히 짧아야 한다.
+ *
+ * (4) 실패한 요청은
+ * 세기만 하고 계속 진행한다. 데우기가 실패했다고 애플리케이션이 뜨지 않으면 안 되기 때문이다.
+ *
+ * (5) report 는
+ * 요청 순서대로 나눈 구간별 지연 시간이다. 뒤 구간으로 갈수록 줄어들어 평평해지면 충분히 데워진 것이다.
+ * 로그와 /actuator/warmup 으로 확인한다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "warmup.enabled", havingValue = "true") // (1)
+public class WarmupRunner implements ApplicationRunner {
+
+    private static final int PAGE_SIZE = 20;
+
+    private final PostsService postsService;
+    private final ObjectMapper objectMapper;
+    private final Environment environment;
+    private final RestTemplate restTemplate = new RestTemplate();
+    private final int iterations;
+    private final Duration timeBudget;
+    private final int windows;
+
+    private volatile WarmupReport report;
+
+    public WarmupRunner(PostsService postsService, ObjectMapper objectMapper, Environment environment,
+                        @Value("${warmup.iterations:3000}") int iterations,
+                        @Value("${warmup.time-budget:20s}") Duration timeBudget,
+                        @Value("${warmup.windows:10}") int windows) {
+        this.postsService = postsService;
+        this.objectMapper = objectMapper;
+        this.environment = environment;
+        this.iterations = iterations;
+        this.timeBudget = timeBudget;
+        this.windows = windows;
+    }
+
+    public WarmupReport getReport() {
+        return report;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        Integer port = environment.getProperty("local.server.port", Integer.class);
+        List<Long> ids = postsService.findAllDesc(null, PAGE_SIZE).stream()
+                .map(PostsListResponseDto::getId)
+                .collect(Collectors.toList());
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.ACCEPT_ENCODING, "gzip");
+        HttpEntity<Void> indexRequest = new HttpEntity<>(headers);
+
+        long[] latencies = new long[iterations];
+        int failures = 0;
+        int completed = 0;
+        long start = System.nanoTime();
+        long deadline = start + timeBudget.toNanos();
+
+        for (; completed < iterations && System.nanoTime() - deadline < 0; completed++) { // (3)
+            long requestStart = System.nanoTime();
+            try {
+                switch (completed % 3) { // (2)
+                    case 0:
+                        if (port != null) {
+                            restTemplate.exchange("http://localhost:" + port + "/", HttpMethod.GET, indexRequest, byte[].class);
+                        }
+                        break;
+                    case 1:
+                        if (!ids.isEmpty()) {
+                            postsService.findById(ids.get(completed % ids.size()));
+                        }
+                        break;
+                    default:
+                        objectMapper.writeValueAsBytes(postsService.findAllDesc(null, PAGE_SIZE));
+                        break;
+                }
+            } catch (Exception e) { // (4)
+                failures++;
+                log.debug("데우기 요청에 실패했습니다.", e);
+            }
+            latencies[completed] = System.nanoTime() - requestStart;
+        }
+
+        report = WarmupReport.of(latencies, completed, failures, Duration.ofNanos(System.nanoTime() - start), windows); // (5)
+        log.info("데우기 완료: {}", report);
+        if (failures > 0) {
+            log.warn("데우기 요청 {}건 중 {}건이 실패했습니다.", completed, failures);
+        }
+    }
+}
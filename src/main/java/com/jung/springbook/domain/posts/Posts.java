@@ -22,7 +22,11 @@ import javax.persistence.*;
  *
  * (3) @GeneratedValue 는
  * PK의 생성 규칙을 나타낸다.
- * 스프링 부트 2.0 에서는 GenerationType.IDENTITY 옵션을 추가해야만 auto_increment(자동으로 1씩 증가)가 된다.
+ * GenerationType.IDENTITY(auto_increment)는 INSERT 를 실행해야 id 를 알 수 있어서 하이버네이트가 INSERT 배치를 사용하지 못한다.
+ * 그래서 SEQUENCE 전략에 allocationSize = 50 (pooled 옵티마이저)을 사용한다. id 를 50개 단위로 미리 받아두기 때문에
+ * INSERT 전에 id 가 정해지고, hibernate.jdbc.batch_size 로 여러 INSERT 를 한 번에 보낼 수 있다.
+ * 시퀀스를 지원하지 않는 MySQL/MariaDB 방언에서는 posts_seq 테이블(next_val 칼럼)을 시퀀스처럼 사용한다.
+ * pooled 옵티마이저는 next_val 을 구간의 마지막 id 로 보므로, 기존 DB 의 posts_seq 는 MAX(id) + 50 으로 넣어야 한다. (scripts/db/create_id_sequence_tables.sql)
  *
  * (4) @Column 은
  * 테이블의 칼럼을 나타내며 굳이 선언하지 않더라고 해당 클래스의 필드는 모두 칼럼이 된다.
@@ -32,6 +36,19 @@ import javax.persistence.*;
  * (5) NoArgsConstructor 는
  * 기본 생성자 자동 추가
  * public Posts(){} 와 같은 효과
+ *
+ * (6) views 는
+ * 조회수이다. 조회할 때마다 UPDATE 하지 않고 PostsViewCounter 가 메모리에 모아서 주기적으로 더한다.
+ * 엔티티로는 변경하지 않으므로 수정일(modifiedDate)도 바뀌지 않는다. 기존 게시글과 칼럼을 지정하지 않은 INSERT 는 기본값 0 을 쓴다.
+ *
+ * (7) @Version 은
+ * 낙관적 잠금에 쓰는 버전이다. 수정할 때마다 1 씩 늘고, 수정 요청이 알고 있는 버전과 다르면 수정하지 않는다.
+ * 행 락을 미리 잡지 않기 때문에(비관적 잠금) 동시에 수정해도 서로 기다리지 않고, 늦은 쪽이 충돌을 받는다.
+ * 조회수(views) 저장은 버전을 올리지 않으므로 수정과 충돌하지 않는다.
+ *
+ * (8) @Convert 는
+ * 긴 본문을 압축해서 저장한다. (posts.content.compression.enabled 를 켰을 때만, PostsContentConverter 참고)
+ * 엔티티와 Dto 에서는 항상 압축을 푼 본문으로 보인다.
  */
 
 @Getter
@@ -40,17 +57,26 @@ import javax.persistence.*;
 public class Posts extends BaseTimeEntity {
 
     @Id // (2)
-    @GeneratedValue(strategy = GenerationType.IDENTITY) // (3)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "posts_seq_generator") // (3)
+    @SequenceGenerator(name = "posts_seq_generator", sequenceName = "posts_seq", allocationSize = 50)
     private Long id;
 
     @Column(length = 500, nullable = false) // (4)
     private String title;
 
+    @Convert(converter = PostsContentConverter.class) // (8)
     @Column(columnDefinition = "TEXT", nullable = false)
     private String content;
 
     private String author;
 
+    @Column(columnDefinition = "BIGINT DEFAULT 0", nullable = false) // (6)
+    private long views;
+
+    @Version // (7)
+    @Column(columnDefinition = "BIGINT DEFAULT 0", nullable = false)
+    private long version;
+
     @Builder
     public Posts(String title, String content, String author){
         this.title = title;
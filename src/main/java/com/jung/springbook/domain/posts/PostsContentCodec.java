@@ -0,0 +1,117 @@
+package com.jung.springbook.domain.posts;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 게시글 본문(content) 압축 형식이다. PostsContentConverter 와 PostsContentMigration 이 같이 쓴다.
+ *
+ * (1) PREFIX 는
+ * 압축된 값 앞에 붙는 형식 헤더이다. 제어 문자(U+0001)로 시작하므로 화면에서 입력한 본문과 겹치지 않고,
+ * 헤더가 없는 값은 압축하지 않은 값으로 그대로 읽는다. 그래서 압축 전에 저장된 행도 그대로 읽힌다.
+ * 마지막 숫자(1)는 형식 버전이다. 코덱을 바꾸면 새 헤더를 쓰고 이전 헤더도 계속 읽는다.
+ *
+ * (2) compress 는
+ * UTF-8 로 threshold 바이트 이상인 본문만 Deflater(BEST_SPEED)로 압축한다. 칼럼이 TEXT 이므로 압축한 바이트는 Base64 로 저장한다.
+ * Base64 로 늘어난 뒤에도 원래보다 작을 때만 압축한 값을 쓰고, 아니면 원래 값을 그대로 쓴다.
+ *
+ * (3) RAW_PREFIX 는
+ * 압축하지 않은 본문이 헤더 문자(U+0001)로 시작할 때 앞에 붙이는 헤더이다. JSON 으로는 U+0001 도 보낼 수 있으므로
+ * 사용자가 U+0001 Z1: 로 시작하는 본문을 저장해도 압축된 값으로 잘못 읽지 않도록, 압축 여부와 상관없이 항상 붙인다. (compress, escape 참고)
+ *
+ * (4) decompress 는
+ * 이 형식이 생기기 전에 헤더처럼 보이는 본문이 그대로 저장된 행이 있을 수 있으므로, 압축을 풀 수 없으면 저장된 값을 그대로 돌려준다.
+ * 한 행 때문에 조회, 내보내기, 검색 색인이 모두 실패하지 않게 하기 위해서이다.
+ */
+public final class PostsContentCodec {
+
+    static final String PREFIX = "\u0001Z1:"; // (1)
+    static final String RAW_PREFIX = "\u0001R1:"; // (3)
+
+    private static final String HEADER_MARK = "\u0001";
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private PostsContentCodec() {
+    }
+
+    public static boolean isCompressed(String value) {
+        return value != null && value.startsWith(PREFIX);
+    }
+
+    public static boolean isEncoded(String value) {
+        return isCompressed(value) || (value != null && value.startsWith(RAW_PREFIX));
+    }
+
+    public static String compress(String content, int threshold) { // (2)
+        if (content == null) {
+            return null;
+        }
+
+        byte[] raw = content.getBytes(StandardCharsets.UTF_8);
+        if (raw.length < threshold) {
+            return escape(content);
+        }
+
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length / 2);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            byte[] buffer = new byte[BUFFER_SIZE];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+        } finally {
+            deflater.end();
+        }
+
+        String compressed = PREFIX + Base64.getEncoder().encodeToString(out.toByteArray());
+        return compressed.length() < raw.length ? compressed : escape(content);
+    }
+
+    public static String decompress(String value) { // (4)
+        if (value != null && value.startsWith(RAW_PREFIX)) {
+            return value.substring(RAW_PREFIX.length());
+        }
+        if (!isCompressed(value)) {
+            return value;
+        }
+
+        try {
+            return inflate(Base64.getDecoder().decode(value.substring(PREFIX.length())));
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            return value;
+        }
+    }
+
+    public static String escape(String content) { // (3)
+        return content == null || !content.startsWith(HEADER_MARK) ? content : RAW_PREFIX + content;
+    }
+
+
+    private static String inflate(byte[] compressed) {
+        Inflater inflater = new Inflater();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(compressed.length * 4);
+        try {
+            inflater.setInput(compressed);
+            byte[] buffer = new byte[BUFFER_SIZE];
+            while (!inflater.finished()) {
+                int length = inflater.inflate(buffer);
+                if (length == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalStateException("압축된 본문이 손상되었습니다.");
+                }
+                out.write(buffer, 0, length);
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("압축된 본문이 손상되었습니다.", e);
+        } finally {
+            inflater.end();
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
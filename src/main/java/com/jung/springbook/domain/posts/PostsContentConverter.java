@@ -0,0 +1,50 @@
+package com.jung.springbook.domain.posts;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+
+/**
+ * Posts.content 를 저장할 때 압축하고, 읽을 때 푼다. (형식은 PostsContentCodec 참고)
+ *
+ * (1) 생성자는
+ * 하이버네이트가 스프링(SpringBeanContainer)을 통해 호출하므로 설정 값을 주입받는다.
+ * 스프링 밖에서 만들어지면 기본 생성자로 압축하지 않는다.
+ *
+ * (2) posts.content.compression.enabled 는
+ * 새로 저장하는 본문을 압축할지 정한다. (기본값 false)
+ * 꺼져 있어도 읽을 때는 헤더를 보고 압축을 푸므로, 압축을 켰다가 끄더라도 이미 압축된 행은 그대로 읽힌다.
+ * 꺼져 있을 때도 헤더 문자로 시작하는 본문은 압축된 값으로 읽히지 않도록 escape 로 RAW_PREFIX 를 붙여서 저장한다.
+ *
+ * (3) JPQL UPDATE(PostsRepository.updateTitleAndContent) 의 :content 파라미터에도
+ * p.content 의 컨버터가 적용된다.
+ */
+@Converter
+public class PostsContentConverter implements AttributeConverter<String, String> {
+
+    private final boolean enabled;
+    private final int threshold;
+
+    public PostsContentConverter() {
+        this(false, Integer.MAX_VALUE);
+    }
+
+    @Autowired // (1)
+    public PostsContentConverter(@Value("${posts.content.compression.enabled:false}") boolean enabled, // (2)
+                                 @Value("${posts.content.compression.threshold:1024}") int threshold) {
+        this.enabled = enabled;
+        this.threshold = threshold;
+    }
+
+    @Override
+    public String convertToDatabaseColumn(String content) { // (3)
+        return enabled ? PostsContentCodec.compress(content, threshold) : PostsContentCodec.escape(content);
+    }
+
+    @Override
+    public String convertToEntityAttribute(String value) {
+        return PostsContentCodec.decompress(value);
+    }
+}
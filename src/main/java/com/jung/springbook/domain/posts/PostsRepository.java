@@ -1,13 +1,93 @@
 package com.jung.springbook.domain.posts;
 
 
+import com.jung.springbook.web.dto.PostsListResponseDto;
+import com.jung.springbook.web.dto.PostsListVersionDto;
+import com.jung.springbook.web.dto.PostsVersionDto;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
+/**
+ * (1) SELECT new ... 는
+ * JPQL 생성자 표현식(constructor expression)이다. 목록 화면에 필요한 id, title, author, modifiedDate 네 칼럼만 조회해서 바로 Dto 로 만든다.
+ * 엔티티가 아니기 때문에 TEXT 타입인 content 를 읽지 않고, 영속성 컨텍스트에 등록되지도 않아 더티 체킹용 스냅샷도 생기지 않는다.
+ *
+ * (2) findAllDesc(cursor, pageable) 는
+ * 키셋(커서) 페이징 쿼리이다. offset 을 쓰지 않고 마지막으로 본 id 보다 작은 글만 조회하기 때문에
+ * 몇 번째 페이지든 PK 인덱스를 타고 pageable 의 size 만큼만 읽는다.
+ * List 를 반환하므로 Page 와 달리 count 쿼리는 실행되지 않는다.
+ *
+ * (3) streamAll() 은
+ * 전체 게시글을 한 번에 List 로 올리지 않고 커서(ResultSet)를 앞으로만 읽는 Stream 으로 반환한다.
+ * fetchSize 만큼씩 DB 에서 가져오고, readOnly 힌트로 더티 체킹용 스냅샷을 만들지 않는다.
+ * Stream 을 다 쓸 때까지 커넥션을 잡고 있으므로 반드시 트랜잭션 안에서 호출하고 try-with-resources 로 닫아야 한다.
+ *
+ * (4) @Modifying 은
+ * 엔티티를 조회하지 않고 UPDATE/DELETE 쿼리 한 번으로 처리하는 벌크 연산이다. 반환값은 변경된 행 수이다. (0 이면 해당 id 가 없다는 뜻)
+ * 벌크 연산은 영속성 컨텍스트와 JPA Auditing 을 거치지 않기 때문에
+ * clearAutomatically 로 실행 후 영속성 컨텍스트를 비우고, modifiedDate 는 호출하는 쪽에서 직접 넘겨준다.
+ *
+ * (5) findVersionById, findListVersion 은
+ * 조건부 요청(If-None-Match / If-Modified-Since)에 304 로 답할 수 있는지 판단하기 위한 가벼운 조회이다.
+ * content 를 읽지 않고 버전, 수정일, 게시글 수만 조회한다.
+ *
+ * (6) updateTitleAndContentIfVersion 은
+ * 낙관적 잠금 수정이다. WHERE 에 버전을 함께 걸어서 UPDATE 한 번으로 버전 확인과 수정을 한다.
+ * 그 사이 다른 수정이 커밋되어 버전이 바뀌었으면 변경된 행 수가 0 이다. 두 수정 모두 버전을 1 올린다.
+ *
+ * (7) streamAllIds 는
+ * 게시글 id 존재 여부 필터(PostsIdFilter)를 만들 때 PK 인덱스만 읽어 id 를 차례로 넘긴다. streamAll 과 같이 트랜잭션 안에서 닫아야 한다.
+ */
 public interface PostsRepository extends JpaRepository<Posts,Long> {
 
-    @Query("SELECT p FROM Posts p ORDER BY p.id DESC")
-    List<Posts> findAllDesc();
+    @Query("SELECT new com.jung.springbook.web.dto.PostsListResponseDto(p.id, p.title, p.author, p.modifiedDate) " +
+            "FROM Posts p ORDER BY p.id DESC") // (1)
+    List<PostsListResponseDto> findAllDesc();
+
+    @Query("SELECT new com.jung.springbook.web.dto.PostsListResponseDto(p.id, p.title, p.author, p.modifiedDate) " +
+            "FROM Posts p WHERE p.id < :cursor ORDER BY p.id DESC") // (2)
+    List<PostsListResponseDto> findAllDesc(@Param("cursor") Long cursor, Pageable pageable);
+
+    @QueryHints(value = {
+            @QueryHint(name = "org.hibernate.fetchSize", value = "100"),
+            @QueryHint(name = "org.hibernate.readOnly", value = "true")
+    })
+    @Query("SELECT p FROM Posts p ORDER BY p.id") // (3)
+    Stream<Posts> streamAll();
+
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "1000"))
+    @Query("SELECT p.id FROM Posts p") // (7)
+    Stream<Long> streamAllIds();
+
+    @Query("SELECT new com.jung.springbook.web.dto.PostsVersionDto(p.version, p.modifiedDate) FROM Posts p WHERE p.id = :id") // (5)
+    Optional<PostsVersionDto> findVersionById(@Param("id") Long id);
+
+    @Query("SELECT new com.jung.springbook.web.dto.PostsListVersionDto(COUNT(p), MAX(p.modifiedDate)) FROM Posts p")
+    PostsListVersionDto findListVersion();
+
+    @Modifying(clearAutomatically = true) // (4)
+    @Query("UPDATE Posts p SET p.title = :title, p.content = :content, p.modifiedDate = :modifiedDate, p.version = p.version + 1 " +
+            "WHERE p.id = :id")
+    int updateTitleAndContent(@Param("id") Long id, @Param("title") String title, @Param("content") String content,
+                              @Param("modifiedDate") LocalDateTime modifiedDate);
+
+    @Modifying(clearAutomatically = true) // (6)
+    @Query("UPDATE Posts p SET p.title = :title, p.content = :content, p.modifiedDate = :modifiedDate, p.version = p.version + 1 " +
+            "WHERE p.id = :id AND p.version = :version")
+    int updateTitleAndContentIfVersion(@Param("id") Long id, @Param("version") Long version, @Param("title") String title,
+                                       @Param("content") String content, @Param("modifiedDate") LocalDateTime modifiedDate);
+
+    @Modifying(clearAutomatically = true)
+    @Query("DELETE FROM Posts p WHERE p.id = :id")
+    int deletePostsById(@Param("id") Long id);
 }
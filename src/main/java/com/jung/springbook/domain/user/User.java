@@ -12,14 +12,24 @@ import javax.persistence.*;
  * JPA로 데이터베이스로 저장할 때 Enum 값을 어떤 형태로 저장할지를 결정한다.
  * 기본적으로는 int로 된 숫자가 저장되는데, 숫자로 저장되면 데이터베이스로 확인할 때 그 값이 무슨 코드를 의미하는지 알 수가 없다.
  * 그래서 문자열 EnumType.STRING 로 저장될 수 있도록 선언한다.
+ *
+ * (2) @SequenceGenerator 는
+ * Posts 와 같은 이유로 IDENTITY 대신 pooled 시퀀스(MySQL/MariaDB 에서는 user_seq 테이블)로 id 를 미리 할당받는다.
+ * 기존 DB 의 user_seq 도 MAX(id) + 50 으로 넣는다. (scripts/db/create_id_sequence_tables.sql)
+ *
+ * (3) uk_user_email 은
+ * 로그인 때마다 이메일로 사용자를 찾기 때문에 email 에 유니크 인덱스를 둔다. (전체 테이블 스캔 방지)
+ * 같은 사용자가 동시에 처음 로그인해도 한 건만 등록된다.
  */
 @Getter
 @NoArgsConstructor
 @Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_user_email", columnNames = "email")) // (3)
 public class User extends BaseTimeEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "user_seq_generator") // (2)
+    @SequenceGenerator(name = "user_seq_generator", sequenceName = "user_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -0,0 +1,49 @@
+package com.jung.springbook.service.posts;
+
+import com.jung.springbook.domain.posts.Posts;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * PostsService 에서 게시글이 등록/수정/삭제될 때 발행하는 이벤트이다.
+ * 검색 색인처럼 게시글 변경을 따라가야 하는 곳은 @TransactionalEventListener 로 받아서 커밋된 변경만 반영한다.
+ *
+ * (1) author 는
+ * 수정 요청에는 작성자가 없기 때문에 UPDATED 이벤트에서는 null 이다.
+ */
+@Getter
+public class PostsChangedEvent {
+
+    public enum Type {
+        CREATED, UPDATED, DELETED
+    }
+
+    private final Type type;
+    private final Long id;
+    private final String title;
+    private final String content;
+    private final String author; // (1)
+    private final LocalDateTime modifiedDate;
+
+    private PostsChangedEvent(Type type, Long id, String title, String content, String author, LocalDateTime modifiedDate) {
+        this.type = type;
+        this.id = id;
+        this.title = title;
+        this.content = content;
+        this.author = author;
+        this.modifiedDate = modifiedDate;
+    }
+
+    public static PostsChangedEvent created(Posts posts) {
+        return new PostsChangedEvent(Type.CREATED, posts.getId(), posts.getTitle(), posts.getContent(), posts.getAuthor(), posts.getModifiedDate());
+    }
+
+    public static PostsChangedEvent updated(Long id, String title, String content, LocalDateTime modifiedDate) {
+        return new PostsChangedEvent(Type.UPDATED, id, title, content, null, modifiedDate);
+    }
+
+    public static PostsChangedEvent deleted(Long id) {
+        return new PostsChangedEvent(Type.DELETED, id, null, null, null, null);
+    }
+}
@@ -0,0 +1,181 @@
+package com.jung.springbook.service.posts;
+
+import com.jung.springbook.domain.posts.PostsContentCodec;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 압축하지 않고 저장된 기존 게시글 본문을 백그라운드에서 조금씩 압축한다. (형식은 PostsContentCodec 참고)
+ *
+ * (1) posts.content.compression.migrate 는
+ * 압축(posts.content.compression.enabled)이 켜져 있을 때 애플리케이션이 준비되면 한 번 실행할지 정한다.
+ * 요청 스레드와 시작 과정을 막지 않도록 별도 스레드에서 실행한다.
+ *
+ * (2) chunk 는
+ * id 순서로 chunk-size 개씩 읽고(id > 마지막 id, OFFSET 없이) 한 트랜잭션으로 저장한다.
+ * chunk 사이에는 pause 만큼 쉬어서 DB 와 복제(replica)가 서비스 트래픽을 먼저 처리하게 한다.
+ *
+ * (3) UPDATE 는
+ * 읽은 뒤 버전(version)이 그대로일 때만 바꾼다. 그 사이에 사용자가 수정한 글은 버전이 올라가 있으므로 덮어쓰지 않는다.
+ * 본문을 비교(content = ?)하지 않는 이유는 MySQL 콜레이션이 대소문자와 끝 공백을 무시해서, 그렇게만 다른 수정본을 덮어쓸 수 있기 때문이다.
+ * 내용은 그대로이므로 버전(version)과 수정일은 바꾸지 않고, 캐시와 검색 색인도 그대로 둔다.
+ *
+ * (4) @PreDestroy 는
+ * 종료할 때 지금 chunk 까지만 저장하고 멈춘다. 다음에 시작하면 이미 압축된 행은 건너뛰고 이어서 진행한다.
+ */
+@Slf4j
+@Component
+public class PostsContentMigration {
+
+    private static final String SELECT_CHUNK = "SELECT id, content, version FROM posts WHERE id > ? ORDER BY id LIMIT ?";
+    private static final String UPDATE_CONTENT = "UPDATE posts SET content = ? WHERE id = ? AND version = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final boolean migrateOnReady;
+    private final int threshold;
+    private final int chunkSize;
+    private final Duration pause;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("posts-content-migration-"));
+    private volatile boolean stopped;
+
+    public PostsContentMigration(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                 @Value("${posts.content.compression.enabled:false}") boolean enabled,
+                                 @Value("${posts.content.compression.migrate:false}") boolean migrateOnReady,
+                                 @Value("${posts.content.compression.threshold:1024}") int threshold,
+                                 @Value("${posts.content.compression.chunk-size:200}") int chunkSize,
+                                 @Value("${posts.content.compression.pause:100ms}") Duration pause) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.migrateOnReady = migrateOnReady;
+        this.threshold = threshold;
+        this.chunkSize = chunkSize;
+        this.pause = pause;
+    }
+
+    @EventListener(ApplicationReadyEvent.class) // (1)
+    public void start() {
+        if (enabled && migrateOnReady) {
+            executor.execute(this::migrate);
+        }
+    }
+
+    @PreDestroy // (4)
+    public void stop() {
+        stopped = true;
+        executor.shutdown();
+    }
+
+    public Result migrate() {
+        Result result = new Result();
+        long lastId = 0;
+        log.info("게시글 본문 압축을 시작합니다. (threshold={}바이트, chunk={}개)", threshold, chunkSize);
+
+        while (!stopped) {
+            long from = lastId;
+            Long last = transactionTemplate.execute(status -> migrateChunk(from, result)); // (2)
+            if (last == null) {
+                break;
+            }
+            lastId = last;
+
+            if (!sleep()) {
+                break;
+            }
+        }
+
+        log.info("게시글 본문 압축을 마쳤습니다. {}", result);
+        return result;
+    }
+
+    private Long migrateChunk(long fromId, Result result) {
+        List<Row> rows = jdbcTemplate.query(SELECT_CHUNK,
+                (rs, rowNum) -> new Row(rs.getLong("id"), rs.getString("content"), rs.getLong("version")), fromId, chunkSize);
+        if (rows.isEmpty()) {
+            return null;
+        }
+
+        List<Object[]> batchArgs = new ArrayList<>();
+        for (Row row : rows) {
+            result.scanned++;
+            if (PostsContentCodec.isEncoded(row.content)) {
+                continue;
+            }
+            String compressed = PostsContentCodec.compress(row.content, threshold);
+            if (!PostsContentCodec.isCompressed(compressed)) {
+                continue;
+            }
+            batchArgs.add(new Object[]{compressed, row.id, row.version}); // (3)
+            result.bytesBefore += row.content.getBytes(StandardCharsets.UTF_8).length;
+            result.bytesAfter += compressed.length();
+        }
+
+        if (!batchArgs.isEmpty()) {
+            for (int updated : jdbcTemplate.batchUpdate(UPDATE_CONTENT, batchArgs)) {
+                result.compressed += Math.max(updated, 0);
+            }
+        }
+        return rows.get(rows.size() - 1).id;
+    }
+
+    private boolean sleep() {
+        if (pause.isZero()) {
+            return true;
+        }
+        try {
+            Thread.sleep(pause.toMillis());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static final class Row {
+
+        private final long id;
+        private final String content;
+        private final long version;
+
+        private Row(long id, String content, long version) {
+            this.id = id;
+            this.content = content;
+            this.version = version;
+        }
+    }
+
+    /**
+     * 압축 결과이다. bytesBefore, bytesAfter 는 압축 대상이었던 본문의 압축 전후 크기이다.
+     */
+    @Getter
+    public static class Result {
+
+        private long scanned;
+        private long compressed;
+        private long bytesBefore;
+        private long bytesAfter;
+
+        @Override
+        public String toString() {
+            return String.format("읽은 행 %d개, 압축한 행 %d개, %d바이트 -> %d바이트", scanned, compressed, bytesBefore, bytesAfter);
+        }
+    }
+}
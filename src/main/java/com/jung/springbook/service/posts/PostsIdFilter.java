@@ -0,0 +1,143 @@
+package com.jung.springbook.service.posts;
+
+import com.jung.springbook.domain.posts.PostsRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.BitSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * 게시글 id 가 존재하는지 메모리에서 먼저 확인하는 필터이다. 없는 id 요청은 DB 를 조회하지 않고 바로 404 로 처리한다.
+ *
+ * (1) ids 는
+ * 존재하는 게시글 id 를 비트로 표시한 BitSet 이다. id 는 시퀀스로 거의 연속해서 발급되므로
+ * 블룸 필터와 달리 오탐 없이 게시글 천만 건을 약 1.2MB 로 표현할 수 있다.
+ *
+ * (2) mightContain 이 false 이면
+ * 확실히 없는 게시글이다. true 는 "있을 수도 있다" 는 뜻이라 DB 에서 다시 확인한다.
+ * 아직 만들어지지 않았거나, 마지막으로 알고 있는 id(maxId) 보다 크거나, int 범위를 넘는 id 는 항상 true 이다.
+ * PostsService 를 거치지 않고 등록된 게시글(다른 인스턴스, 직접 INSERT)도 대부분 maxId 보다 커서 DB 에서 확인된다.
+ * maxId 는 rebuild 가 읽은 DB 의 값만 쓴다. 이 인스턴스에서 등록한 게시글로 maxId 를 올리면, 다른 인스턴스가 먼저 받아둔
+ * 시퀀스 구간(더 작은 id)으로 등록한 게시글이 maxId 아래에 들어와 없다고 잘못 판단된다. 이 인스턴스에서 등록한 id 는 이미 비트로 표시되어 있다.
+ *
+ * (3) onPostsChanged 는
+ * 등록/삭제가 커밋된 뒤에 비트를 바꾼다. 다시 만드는 중에 일어난 변경은 added/removed 에도 기록했다가 새 BitSet 에 한 번 더 적용한다.
+ *
+ * (4) rebuild 는
+ * 애플리케이션이 뜰 때와 rebuild-interval 마다 DB 의 id 만 읽어 새로 만든다.
+ * 다른 인스턴스가 먼저 받아둔 시퀀스 구간으로 maxId 보다 작은 id 를 등록하는 경우에도 이 주기 안에 반영된다.
+ * 복제 지연으로 최근 게시글이 빠지지 않도록 읽기 전용 트랜잭션(replica)이 아닌 primary 에서 읽고,
+ * 읽다가 실패하면 이전 BitSet 을 그대로 쓴다.
+ */
+@Component
+public class PostsIdFilter {
+
+    private final PostsRepository postsRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private BitSet ids = new BitSet(); // (1)
+    private long maxId;
+    private boolean ready;
+    private BitSet added;
+    private BitSet removed;
+
+    public PostsIdFilter(PostsRepository postsRepository, PlatformTransactionManager transactionManager) {
+        this.postsRepository = postsRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public boolean mightContain(Long id) { // (2)
+        if (id == null || id <= 0) {
+            return false;
+        }
+
+        lock.readLock().lock();
+        try {
+            if (!ready || id > maxId || id > Integer.MAX_VALUE) {
+                return true;
+            }
+            return ids.get(id.intValue());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true) // (3)
+    public void onPostsChanged(PostsChangedEvent event) {
+        if (event.getType() == PostsChangedEvent.Type.UPDATED) {
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            boolean created = event.getType() == PostsChangedEvent.Type.CREATED;
+            apply(ids, event.getId(), created);
+            if (added != null) {
+                apply(created ? added : removed, event.getId(), true);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${posts.id-filter.rebuild-interval:600000}", initialDelayString = "${posts.id-filter.rebuild-interval:600000}")
+    public synchronized void rebuild() { // (4)
+        lock.writeLock().lock();
+        try {
+            added = new BitSet();
+            removed = new BitSet();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        try {
+            BitSet rebuilt = new BitSet();
+            long rebuiltMaxId = transactionTemplate.execute(status -> {
+                long max = 0;
+                try (Stream<Long> stream = postsRepository.streamAllIds()) {
+                    for (Long id : (Iterable<Long>) stream::iterator) {
+                        max = Math.max(max, id);
+                        apply(rebuilt, id, true);
+                    }
+                }
+                return max;
+            });
+
+            lock.writeLock().lock();
+            try {
+                rebuilt.or(added);
+                rebuilt.andNot(removed);
+                ids = rebuilt;
+                maxId = rebuiltMaxId;
+                ready = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } finally {
+            lock.writeLock().lock();
+            try {
+                added = null;
+                removed = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    private static void apply(BitSet bits, Long id, boolean present) {
+        if (id == null || id <= 0 || id > Integer.MAX_VALUE) {
+            return;
+        }
+        bits.set(id.intValue(), present);
+    }
+}
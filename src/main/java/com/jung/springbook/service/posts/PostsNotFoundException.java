@@ -0,0 +1,36 @@
+package com.jung.springbook.service.posts;
+
+/**
+ * 요청한 게시글이 없을 때 발생한다. 404 Not Found 로 응답한다. (GlobalExceptionHandler 참고)
+ *
+ * (1) fillInStackTrace 는
+ * 호출 스택을 기록하지 않도록 비워둔다. 없는 id 요청은 정상적인 흐름이라 스택 트레이스가 필요 없고,
+ * 예외를 만들 때마다 스택을 따라가는 비용이 가장 크기 때문이다.
+ *
+ * (2) getMessage 는
+ * 메시지를 실제로 사용할 때만 만든다.
+ *
+ * 기존 호출부가 IllegalArgumentException 으로 처리하고 있어서 그 하위 타입으로 둔다.
+ */
+public class PostsNotFoundException extends IllegalArgumentException {
+
+    private final Long id;
+
+    public PostsNotFoundException(Long id) {
+        this.id = id;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    @Override
+    public String getMessage() { // (2)
+        return "해당 게시글이 없습니다. id = " + id;
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() { // (1)
+        return this;
+    }
+}
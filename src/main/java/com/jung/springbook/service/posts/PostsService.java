@@ -1,80 +1,253 @@
 package com.jung.springbook.service.posts;
 
+import com.jung.springbook.config.CacheConfig;
 import com.jung.springbook.domain.posts.Posts;
 import com.jung.springbook.domain.posts.PostsRepository;
+import com.jung.springbook.web.dto.PostsExportDto;
 import com.jung.springbook.web.dto.PostsListResponseDto;
+import com.jung.springbook.web.dto.PostsListVersionDto;
 import com.jung.springbook.web.dto.PostsResponseDto;
 import com.jung.springbook.web.dto.PostsSaveRequestDto;
 import com.jung.springbook.web.dto.PostsUpdateRequestDto;
+import com.jung.springbook.web.dto.PostsVersionDto;
+import io.micrometer.core.annotation.Timed;
 import lombok.NoArgsConstructor;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import javax.transaction.Transactional;
+import javax.persistence.EntityManager;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * (1) @Transactional 는
  * @Transactional 이 포함된 메소드가 호출 될 경우, PlatformTransactionManager 를 사용하여 트랜잭션을 시작하고, 정상 여부에 따라 Commit 또는 Rollback 한다.
  *
- * (2) update 쿼리가 없는 이유는
- * 트랜잭션 안에서 데이터베이스에서 데이터를 가져오면 이 데이터는 영속성 컨테스트가 유지된 상태가 되어,
- * 이 상태에서 해당 데이터의 값을 변경하면 트랜잭션이 끝나는 시점에 해당 테이블(Entity)에 변경분을 반영한다.
- * 즉, Entity 객체의 값만 변경하면 별도로 Update 쿼리를 날릴 필요가 없다. 이 개념을 더티 체킹이라 한다.
+ * (2) update, delete 는
+ * 엔티티를 먼저 조회해서 더티 체킹(값만 바꾸면 트랜잭션이 끝날 때 UPDATE)이나 delete(entity) 로 처리하면
+ * SELECT 와 UPDATE/DELETE 두 번 DB 를 왕복하고 엔티티도 만들어야 한다.
+ * 그래서 벌크 쿼리 한 번으로 처리하고, 변경된 행 수가 0 이면 게시글이 없는 것으로 본다.
+ * 벌크 쿼리는 JPA Auditing 이 동작하지 않으므로 BaseTimeEntity 와 똑같이 LocalDateTime.now() 를 modifiedDate 로 넘긴다.
  *
- * (3) stream 은
- * 컬렉션, 배엳등의 저장 요소를 하나씩 참조하며 함수형 인터페이스(람다식)를 적용하며 반복적으로 처리할 수 있도록 해주는 기능이다.
- * 예) 일반 List를 for문 돌려서 사용하는거랑 같음.
+ * (3) 목록 조회는
+ * 엔티티를 조회해서 PostsListResponseDto 로 변환하지 않고, 리포지토리에서 목록에 필요한 칼럼만 Dto 로 바로 조회한다.
+ * content 칼럼을 읽지 않고 엔티티를 영속성 컨텍스트에 올리지 않기 때문에 요청당 읽는 데이터와 메모리 사용량이 줄어든다.
  *
- * (4) Map 은
- * stream 의 각 요소를 연산하는데 쓰인다.(각 요소에 접근한다.)
- * PostsListResponseDto::new 은 posts -> new PostsListResponseDto(posts) 와 똑같다.
+ * (4) cursor 는
+ * 이전 페이지에서 마지막으로 보여준 게시글 id 이다. 첫 페이지는 cursor 가 없으므로 Long.MAX_VALUE 부터 조회한다.
+ *
+ * (5) @Cacheable 는
+ * 같은 id 로 다시 조회하면 DB 를 거치지 않고 posts 캐시에 담긴 PostsResponseDto 를 반환한다.
+ * sync = true 라서 캐시가 비어 있을 때 같은 id 로 동시에 들어온 요청 중 하나만 DB 를 조회한다.
+ *
+ * (6) @CacheEvict 는
+ * 수정/삭제가 커밋된 뒤 해당 id 의 캐시를 비운다. (CacheConfig 참고)
+ *
+ * (7) exportAll 은
+ * 전체 게시글을 Stream 으로 한 건씩 읽어 consumer 에 넘긴다. 넘긴 엔티티는 바로 detach 해서 영속성 컨텍스트에 쌓이지 않게 한다.
+ * 그래서 게시글이 몇 건이든 메모리에는 fetchSize 만큼의 행만 올라온다.
+ *
+ * (8) saveAll 은
+ * 여러 게시글을 한 트랜잭션에서 등록한다. id 를 시퀀스로 미리 받기 때문에 persist 시점에는 INSERT 가 나가지 않고,
+ * BATCH_SIZE 건마다 flush 해서 JDBC 배치로 한 번에 보낸 뒤 clear 로 영속성 컨텍스트를 비운다.
+ *
+ * (9) PostsChangedEvent 는
+ * 등록/수정/삭제 후 발행한다. 받는 쪽(검색 색인 등)은 트랜잭션이 커밋된 뒤에 처리한다.
+ *
+ * (10) findVersionById 는
+ * 조건부 요청을 판단할 때 쓰는 게시글 버전(version, 수정일)이다. posts 캐시에 Dto 가 있으면 DB 를 거치지 않고 그 값을 쓰고,
+ * 없으면 두 칼럼만 조회한다. 캐시 확인에 트랜잭션이 필요 없으므로 @Transactional 을 붙이지 않는다.
+ *
+ * (11) @Timed 는
+ * 메소드 실행 시간을 posts.service 타이머(class, method 태그)에 기록한다. p50/p95/p99 와 프로메테우스 히스토그램 버킷을 함께 낸다.
+ * 캐시 어드바이스가 가장 바깥에 있으므로 캐시에서 바로 반환된 조회는 기록되지 않는다. (캐시 적중은 cache.gets 메트릭으로 본다)
+ *
+ * (12) @Transactional(readOnly = true) 는
+ * 복제(replica) DB 가 설정되어 있으면 조회를 replica 로 보낸다. (DataSourceConfig 참고) 하이버네이트도 변경 감지용 스냅샷을 만들지 않는다.
+ * findById, findListVersion, findAllDesc(cursor, size) 의 결과는 posts 캐시, 목록 화면의 ETag, postsTable 캐시(PostsTableRenderer)에 쓰인다.
+ * 이 인스턴스가 게시글을 바꾼 직후에는 replica 가 그 변경을 받을 때까지 primary 에서 읽으므로 수정 전 값이 캐시되지 않는다. (ReplicaLagMonitor 참고)
+ *
+ * (13) expectedVersion 이 있는 update 는
+ * 낙관적 잠금 수정이다. 버전 조건을 건 UPDATE 한 번으로 처리하고, 변경된 행이 없으면 게시글이 있는지 확인해서
+ * 있으면 PostsVersionConflictException(409) 을 던진다. 충돌했다는 것은 캐시된 Dto 도 오래된 것일 수 있다는 뜻이므로
+ * 롤백과 상관없이 바로 지우는 evictIfPresent 로 캐시를 비운다. (@CacheEvict 는 예외가 나면 실행되지 않는다)
+ *
+ * (14) checkMightExist 는
+ * id 존재 여부 필터(PostsIdFilter)에서 확실히 없는 id 이면 DB 를 조회하지 않고 PostsNotFoundException(404) 을 던진다.
+ * 필터가 "있을 수도 있다" 고 하면 지금처럼 DB 결과로 판단한다.
  */
 
 @RequiredArgsConstructor
 @Service
 public class PostsService {
 
+    private static final int BATCH_SIZE = 50; // hibernate.jdbc.batch_size 와 같은 값
+    private static final String METRIC_NAME = "posts.service";
+
     private final PostsRepository postsRepository;
+    private final EntityManager entityManager;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CacheManager cacheManager;
+    private final PostsIdFilter postsIdFilter;
 
+    @Timed(value = METRIC_NAME, percentiles = {0.5, 0.95, 0.99}, histogram = true) // (11)
     @Transactional // (1)
     public Long save(PostsSaveRequestDto requestDto){
-        return postsRepository.save(requestDto.toEntity()).getId();
+        Posts posts = postsRepository.save(requestDto.toEntity());
+        eventPublisher.publishEvent(PostsChangedEvent.created(posts)); // (9)
+
+        return posts.getId();
+    }
+
+    @Timed(value = METRIC_NAME, percentiles = {0.5, 0.95, 0.99}, histogram = true)
+    @Transactional
+    public List<Long> saveAll(List<PostsSaveRequestDto> requestDtos){ // (8)
+        List<Long> ids = new ArrayList<>(requestDtos.size());
+
+        for (int i = 0; i < requestDtos.size(); i++) {
+            Posts posts = requestDtos.get(i).toEntity();
+            entityManager.persist(posts);
+            ids.add(posts.getId());
+            eventPublisher.publishEvent(PostsChangedEvent.created(posts));
+
+            if ((i + 1) % BATCH_SIZE == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+
+        return ids;
     }
 
+    @Timed(value = METRIC_NAME, percentiles = {0.5, 0.95, 0.99}, histogram = true)
+    @CacheEvict(value = CacheConfig.POSTS, key = "#id") // (6)
     @Transactional
     public Long update(Long id, PostsUpdateRequestDto requestDto){
-        Posts posts = postsRepository.findById(id)
-                                    .orElseThrow(() -> new IllegalArgumentException("해당 게시물이 없습니다. id = " + id));
+        checkMightExist(id); // (14)
+        LocalDateTime modifiedDate = LocalDateTime.now();
+        int updated = postsRepository.updateTitleAndContent(id, requestDto.getTitle(), requestDto.getContent(), modifiedDate); // (2)
 
-        posts.update(requestDto.getTitle(), requestDto.getContent()); // (2)
+        if (updated == 0) {
+            throw new PostsNotFoundException(id);
+        }
+
+        eventPublisher.publishEvent(PostsChangedEvent.updated(id, requestDto.getTitle(), requestDto.getContent(), modifiedDate));
 
         return id;
     }
 
+    @Timed(value = METRIC_NAME, percentiles = {0.5, 0.95, 0.99}, histogram = true)
+    @CacheEvict(value = CacheConfig.POSTS, key = "#id")
     @Transactional
+    public Long update(Long id, PostsUpdateRequestDto requestDto, Long expectedVersion){ // (13)
+        if (expectedVersion == null) {
+            return update(id, requestDto);
+        }
+        checkMightExist(id);
+
+        LocalDateTime modifiedDate = LocalDateTime.now();
+        int updated = postsRepository.updateTitleAndContentIfVersion(id, expectedVersion, requestDto.getTitle(), requestDto.getContent(), modifiedDate);
+
+        if (updated == 0) {
+            if (!postsRepository.existsById(id)) {
+                throw new PostsNotFoundException(id);
+            }
+            Cache cache = cacheManager.getCache(CacheConfig.POSTS);
+            if (cache != null) {
+                cache.evictIfPresent(id);
+            }
+            throw new PostsVersionConflictException(id, expectedVersion);
+        }
+
+        eventPublisher.publishEvent(PostsChangedEvent.updated(id, requestDto.getTitle(), requestDto.getContent(), modifiedDate));
+
+        return id;
+    }
+
+    @Timed(value = METRIC_NAME, percentiles = {0.5, 0.95, 0.99}, histogram = true)
+    @Cacheable(value = CacheConfig.POSTS, key = "#id", sync = true) // (5)
+    @Transactional(readOnly = true) // (12)
     public PostsResponseDto findById (Long id){
+        checkMightExist(id);
         Posts entity = postsRepository.findById(id)
-                .orElseThrow(() -> new IllegalArgumentException("해당 게시물이 없습니다. id = " + id));
+                .orElseThrow(() -> new PostsNotFoundException(id));
 
         return new PostsResponseDto(entity);
     }
 
-    @Transactional
+    @Timed(value = METRIC_NAME, percentiles = {0.5, 0.95, 0.99}, histogram = true)
+    public PostsVersionDto findVersionById(Long id){ // (10)
+        Cache cache = cacheManager.getCache(CacheConfig.POSTS);
+        PostsResponseDto cached = cache == null ? null : cache.get(id, PostsResponseDto.class);
+
+        if (cached != null) {
+            return new PostsVersionDto(cached.getVersion(), cached.getModifiedDate());
+        }
+        checkMightExist(id);
+
+        return postsRepository.findVersionById(id)
+                .orElseThrow(() -> new PostsNotFoundException(id));
+    }
+
+    @Timed(value = METRIC_NAME, percentiles = {0.5, 0.95, 0.99}, histogram = true)
+    @Transactional(readOnly = true) // (12)
+    public PostsListVersionDto findListVersion(){
+        return postsRepository.findListVersion();
+    }
+
+    @Timed(value = METRIC_NAME, percentiles = {0.5, 0.95, 0.99}, histogram = true)
+    @Transactional(readOnly = true)
     public List<PostsListResponseDto> findAllDesc(){
+        return postsRepository.findAllDesc(); // (3)
+    }
+
+    @Timed(value = METRIC_NAME, percentiles = {0.5, 0.95, 0.99}, histogram = true)
+    @Transactional(readOnly = true)
+    public List<PostsListResponseDto> findAllDesc(Long cursor, int size){
+        Long lastId = cursor == null ? Long.MAX_VALUE : cursor; // (4)
 
+        return postsRepository.findAllDesc(lastId, PageRequest.of(0, size));
+    }
 
-        return postsRepository.findAllDesc().stream() // (3)
-                .map(PostsListResponseDto::new) // (4)
-                .collect(Collectors.toList());
+    @Timed(value = METRIC_NAME, percentiles = {0.5, 0.95, 0.99}, histogram = true)
+    @Transactional(readOnly = true)
+    public void exportAll(Consumer<PostsExportDto> consumer){
+        try (Stream<Posts> posts = postsRepository.streamAll()) { // (7)
+            posts.forEach(entity -> {
+                consumer.accept(new PostsExportDto(entity));
+                entityManager.detach(entity);
+            });
+        }
     }
 
+    @Timed(value = METRIC_NAME, percentiles = {0.5, 0.95, 0.99}, histogram = true)
+    @CacheEvict(value = CacheConfig.POSTS, key = "#id")
     @Transactional
     public void delete(Long id){
-        Posts posts = postsRepository.findById(id).orElseThrow(() -> new IllegalArgumentException("해당 게시글이 없습니다. id = "+ id));
+        checkMightExist(id);
+        int deleted = postsRepository.deletePostsById(id);
+
+        if (deleted == 0) {
+            throw new PostsNotFoundException(id);
+        }
+
+        eventPublisher.publishEvent(PostsChangedEvent.deleted(id));
+    }
 
-        postsRepository.delete(posts);
+    private void checkMightExist(Long id) {
+        if (!postsIdFilter.mightContain(id)) {
+            throw new PostsNotFoundException(id);
+        }
     }
 
 }
@@ -0,0 +1,26 @@
+package com.jung.springbook.service.posts;
+
+/**
+ * 수정 요청의 버전(If-Match)이 게시글의 현재 버전과 다를 때 발생한다. 다른 사용자가 먼저 수정했다는 뜻이므로 409 Conflict 로 응답한다.
+ * 동시 수정이 몰리면 자주 발생하는 정상적인 흐름이므로 PostsNotFoundException 과 같이 스택 트레이스를 기록하지 않는다.
+ */
+public class PostsVersionConflictException extends RuntimeException {
+
+    private final Long id;
+    private final Long expectedVersion;
+
+    public PostsVersionConflictException(Long id, Long expectedVersion) {
+        this.id = id;
+        this.expectedVersion = expectedVersion;
+    }
+
+    @Override
+    public String getMessage() {
+        return "게시글이 이미 수정되었습니다. id = " + id + ", version = " + expectedVersion;
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
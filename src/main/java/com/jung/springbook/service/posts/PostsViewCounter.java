@@ -0,0 +1,188 @@
+package com.jung.springbook.service.posts;
+
+import com.jung.springbook.config.CacheConfig;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 게시글 조회수를 메모리에 모았다가 주기적으로 DB 에 더한다. (write-behind)
+ * 조회할 때마다 UPDATE posts SET views = views + 1 을 하면 인기 글 한 행의 락을 모든 조회 요청이 기다리게 된다.
+ *
+ * (1) increment 는
+ * 게시글 id 별 카운터(AtomicLong)에 CAS 로 1 을 더한다. 락이 없고, 이미 카운터가 있으면 computeIfAbsent(버킷 락) 를 거치지 않는다.
+ * 카운터가 이미 맵에서 지워지는 중(retired)이면 더하지 않고 맵에서 카운터를 다시 찾아 새 카운터에 더한다.
+ *
+ * (2) flush 는
+ * 마지막 flush 이후 늘어난 조회수만 모아서 UPDATE 한 번을 JDBC 배치로 보낸다. 카운터를 0 으로 되돌리지 않고
+ * 저장한 값(flushed)만 기록하기 때문에 flush 도중에 들어온 조회도 잃지 않고 다음 flush 에 더해진다.
+ * 저장에 실패하면 flushed 를 바꾸지 않으므로 다음 flush 에서 다시 시도한다.
+ *
+ * (3) 저장한 게시글은
+ * posts 캐시에서 지운다. 캐시된 Dto 의 views 는 DB 값이므로, 지우지 않으면 저장 후 pending 이 0 이 되면서 조회수가 줄어 보인다.
+ *
+ * (4) 지난 flush 이후 조회가 없던 카운터는
+ * 맵에서 지워서 조회된 적이 있는 모든 글의 카운터가 계속 쌓이지 않게 한다.
+ * 값이 저장한 값(flushed)과 같을 때만 CAS 로 RETIRED 로 바꾸고 지우기 때문에, 그 사이에 조회가 더해졌으면 지우지 않고,
+ * 지운 뒤에는 이 카운터에 더해지는 조회가 없다. (increment 가 RETIRED 를 보고 다시 시도한다)
+ *
+ * (5) @PreDestroy 는
+ * 애플리케이션이 정상 종료될 때(kill -15) 남은 조회수를 저장한다. DataSource 보다 먼저 종료되므로 저장할 수 있다.
+ *
+ * (6) readiness 가 REFUSING_TRAFFIC 이 되면 (드레인, 종료 시작. ShutdownCoordinator 참고)
+ * 기다리지 않고 바로 저장한다. 종료 전에 쌓인 조회수가 다른 인스턴스의 화면에도 빨리 반영되게 한다.
+ */
+@Slf4j
+@Component
+public class PostsViewCounter {
+
+    private static final String UPDATE_VIEWS = "UPDATE posts SET views = views + ? WHERE id = ?";
+
+    private final Map<Long, Counter> counters = new ConcurrentHashMap<>();
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CacheManager cacheManager;
+    private final Timer flushTimer;
+
+    public PostsViewCounter(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                            CacheManager cacheManager, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.cacheManager = cacheManager;
+        this.flushTimer = meterRegistry.timer("posts.views.flush");
+        Gauge.builder("posts.views.pending", counters, Map::size)
+                .description("저장되지 않은 조회수가 있는 게시글 수")
+                .register(meterRegistry);
+    }
+
+    public void increment(Long id) { // (1)
+        while (true) {
+            Counter counter = counters.get(id);
+            if (counter == null) {
+                counter = counters.computeIfAbsent(id, key -> new Counter());
+            }
+            if (counter.increment()) {
+                return;
+            }
+            counters.remove(id, counter);
+        }
+    }
+
+    public long pending(Long id) {
+        Counter counter = counters.get(id);
+        return counter == null ? 0 : counter.pending();
+    }
+
+    @Scheduled(fixedDelayString = "${posts.views.flush-interval:10000}")
+    public synchronized void flush() { // (2)
+        flushTimer.record(this::flushPending);
+    }
+
+    @EventListener // (6)
+    public void onReadinessChanged(AvailabilityChangeEvent<ReadinessState> event) {
+        if (event.getState() == ReadinessState.REFUSING_TRAFFIC) {
+            flush();
+        }
+    }
+
+    @PreDestroy // (5)
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    private void flushPending() {
+        List<Long> ids = new ArrayList<>();
+        List<Counter> flushedCounters = new ArrayList<>();
+        List<Long> totals = new ArrayList<>();
+        List<Object[]> batchArgs = new ArrayList<>();
+
+        for (Map.Entry<Long, Counter> entry : counters.entrySet()) {
+            Counter counter = entry.getValue();
+            long total = counter.total();
+            long delta = total - counter.flushed;
+
+            if (delta == 0) {
+                if (counter.retire()) { // (4)
+                    counters.remove(entry.getKey(), counter);
+                }
+                continue;
+            }
+
+            ids.add(entry.getKey());
+            flushedCounters.add(counter);
+            totals.add(total);
+            batchArgs.add(new Object[]{delta, entry.getKey()});
+        }
+
+        if (batchArgs.isEmpty()) {
+            return;
+        }
+
+        try {
+            transactionTemplate.execute(status -> jdbcTemplate.batchUpdate(UPDATE_VIEWS, batchArgs));
+        } catch (DataAccessException e) {
+            log.warn("조회수 저장에 실패했습니다. 다음 주기에 다시 시도합니다. ({}건)", batchArgs.size(), e);
+            return;
+        }
+
+        Cache cache = cacheManager.getCache(CacheConfig.POSTS);
+        for (int i = 0; i < ids.size(); i++) {
+            flushedCounters.get(i).flushed = totals.get(i);
+            if (cache != null) {
+                cache.evict(ids.get(i)); // (3)
+            }
+        }
+    }
+
+    private static final class Counter {
+
+        private static final long RETIRED = -1;
+
+        private final AtomicLong views = new AtomicLong();
+        private volatile long flushed;
+
+        private boolean increment() {
+            while (true) {
+                long current = views.get();
+                if (current == RETIRED) {
+                    return false;
+                }
+                if (views.compareAndSet(current, current + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        private boolean retire() { // (4)
+            return views.compareAndSet(flushed, RETIRED);
+        }
+
+        private long total() {
+            long current = views.get();
+            return current == RETIRED ? flushed : current;
+        }
+
+        private long pending() {
+            return total() - flushed;
+        }
+    }
+}
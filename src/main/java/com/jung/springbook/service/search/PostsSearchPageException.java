@@ -0,0 +1,26 @@
+package com.jung.springbook.service.search;
+
+/**
+ * 검색 결과 페이지(page)가 너무 뒤일 때 발생한다. 400 Bad Request 로 응답한다. (GlobalExceptionHandler 참고)
+ * 루씬은 앞 페이지의 결과까지 모두 모아서 잘라내므로, 깊은 페이지 요청은 결과 수만큼 메모리와 시간을 쓴다.
+ */
+public class PostsSearchPageException extends IllegalArgumentException {
+
+    private final int page;
+    private final int maxPage;
+
+    public PostsSearchPageException(int page, int maxPage) {
+        this.page = page;
+        this.maxPage = maxPage;
+    }
+
+    @Override
+    public String getMessage() {
+        return "검색 결과는 " + maxPage + " 페이지까지 볼 수 있습니다. page = " + page;
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
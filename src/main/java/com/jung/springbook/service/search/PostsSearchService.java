@@ -0,0 +1,332 @@
+package com.jung.springbook.service.search;
+
+import com.jung.springbook.service.posts.PostsChangedEvent;
+import com.jung.springbook.service.posts.PostsService;
+import com.jung.springbook.web.dto.PostsSearchResponseDto;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.ko.KoreanAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.MultiTerms;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.index.TermsEnum;
+import org.apache.lucene.queryparser.classic.MultiFieldQueryParser;
+import org.apache.lucene.queryparser.classic.ParseException;
+import org.apache.lucene.queryparser.classic.QueryParser;
+import org.apache.lucene.search.ControlledRealTimeReopenThread;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.BytesRef;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 게시글 제목/본문 전문 검색(Full-text search)을 담당한다.
+ * LIKE '%검색어%' 는 TEXT 칼럼 전체를 읽어야 하므로, 메모리에 루씬(Lucene) 역색인을 두고 검색한다.
+ *
+ * (1) KoreanAnalyzer 는
+ * 루씬의 한국어 형태소 분석기(nori)이다. "부트로" 처럼 조사가 붙은 단어에서 "부트" 만 색인해서 검색어와 맞춰준다.
+ *
+ * (2) SearcherManager 는
+ * IndexWriter 의 변경분을 커밋 없이 바로 검색에 반영(NRT, near real-time)할 수 있게 IndexSearcher 를 관리한다.
+ *
+ * (3) rebuild() 는
+ * 색인이 메모리에만 있으므로 애플리케이션이 뜰 때 DB 전체를 한 건씩 읽어 다시 만든다.
+ * ApplicationReadyEvent 에서 실행되기 때문에 색인이 다 만들어진 뒤에 트래픽을 받는다.
+ *
+ * (4) @TransactionalEventListener 는
+ * PostsService 가 발행한 PostsChangedEvent 를 트랜잭션이 커밋된 뒤에 받아서 해당 게시글만 색인에 반영한다.
+ * IndexWriter 는 여러 스레드에서 같이 써도 되므로 락을 잡지 않고, 검색에 보이게 하는 것(reopen)은 reopenThread 가 모아서 한다.
+ * 수정 이벤트에는 작성자가 없으므로 posts 캐시/DB 의 작성자를 쓴다. (작성자는 수정되지 않는다)
+ * 이미 커밋된 변경이므로 색인에 실패해도 예외를 던지지 않고 로그만 남긴다. 빠진 변경은 reconcile 이 맞춘다.
+ *
+ * (7) ControlledRealTimeReopenThread 는
+ * 색인 변경을 검색에 반영(reopen)하는 일을 백그라운드에서 최대 MAX_STALE_SEC 마다 한 번씩 모아서 한다.
+ * 변경마다 reopen 하면 saveAll 로 1000건을 등록할 때 1000번 reopen 하고 작은 세그먼트가 1000개 생긴다.
+ * 변경 직후의 검색 결과는 최대 MAX_STALE_SEC 만큼 늦게 보일 수 있다.
+ *
+ * (5) search 는
+ * 검색어를 그대로(escape) 제목, 본문에서 찾고 제목에 가중치를 더 줘서 관련도 순으로 정렬한 뒤 page, size 만큼 잘라서 반환한다.
+ * 결과는 색인에 저장된 값으로 만들기 때문에 검색 시간은 게시글 수가 아니라 검색어에 걸리는 문서 수에 비례한다.
+ * 루씬은 앞 페이지의 결과까지 모아야 하므로 page 는 MAX_PAGE 까지만 받고, 넘으면 PostsSearchPageException(400) 을 던진다.
+ * 모을 결과 수는 Math.multiplyExact 로 계산해서 int 범위를 넘으면 잘못된 값으로 검색하지 않고 예외가 나게 한다.
+ *
+ * (6) reconcile 은
+ * 색인을 reconcile-interval 마다 primary DB 와 맞춘다. 이벤트는 이 인스턴스에서 커밋된 변경만 전달되므로
+ * 다른 인스턴스(8081/8082)나 직접 실행한 SQL 로 바뀐 게시글은 이때 반영된다.
+ * 복제 지연으로 최근 변경이 빠지지 않도록 읽기 전용 트랜잭션(replica)이 아닌 primary 에서 읽는다. (PostsIdFilter.rebuild 와 같다)
+ * 색인을 지우지 않고 DB 의 게시글을 다시 색인한 뒤 DB 에 없는 게시글만 지우므로 그동안에도 검색 결과가 비지 않는다.
+ * 맞추는 동안 이벤트로 바뀐 게시글(changed)은 DB 에서 읽은 값이 더 오래되었을 수 있으므로 건드리지 않는다.
+ * 같은 게시글의 이벤트와 reconcile 은 changed 의 compute 로 순서를 정한다. (전체 락 없이 게시글 단위로)
+ */
+@Slf4j
+@Service
+public class PostsSearchService {
+
+    private static final String ID = "id";
+    private static final String TITLE = "title";
+    private static final String CONTENT = "content";
+    private static final String AUTHOR = "author";
+    private static final String MODIFIED_DATE = "modifiedDate";
+
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int MAX_PAGE = 100;
+    private static final double MAX_STALE_SEC = 1.0;
+    private static final double MIN_STALE_SEC = 0.05;
+
+    private final PostsService postsService;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Directory directory = new ByteBuffersDirectory();
+    private final Analyzer analyzer = new KoreanAnalyzer(); // (1)
+
+    private final AtomicLong lastGeneration = new AtomicLong();
+
+    private IndexWriter indexWriter;
+    private SearcherManager searcherManager;
+    private ControlledRealTimeReopenThread<IndexSearcher> reopenThread;
+    private volatile Map<Long, Boolean> changed;
+
+    public PostsSearchService(PostsService postsService, PlatformTransactionManager transactionManager) {
+        this.postsService = postsService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @PostConstruct
+    public void open() throws IOException {
+        indexWriter = new IndexWriter(directory, new IndexWriterConfig(analyzer));
+        searcherManager = new SearcherManager(indexWriter, null); // (2)
+        reopenThread = new ControlledRealTimeReopenThread<>(indexWriter, searcherManager, MAX_STALE_SEC, MIN_STALE_SEC); // (7)
+        reopenThread.setName("posts-search-reopen");
+        reopenThread.setDaemon(true);
+        reopenThread.start();
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        reopenThread.close();
+        searcherManager.close();
+        indexWriter.close();
+        directory.close();
+        analyzer.close();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() throws IOException { // (3)
+        indexWriter.deleteAll();
+
+        postsService.exportAll(dto -> index(dto.getId(), dto.getTitle(), dto.getContent(), dto.getAuthor(), dto.getModifiedDate()));
+
+        searcherManager.maybeRefresh();
+    }
+
+    @Scheduled(fixedDelayString = "${posts.search.reconcile-interval:600000}", initialDelayString = "${posts.search.reconcile-interval:600000}")
+    public synchronized void reconcile() throws IOException { // (6)
+        Map<Long, Boolean> reconciling = new ConcurrentHashMap<>();
+        changed = reconciling;
+
+        try {
+            Set<Long> found = new HashSet<>();
+            transactionTemplate.executeWithoutResult(status -> postsService.exportAll(dto -> {
+                found.add(dto.getId());
+                reconciling.compute(dto.getId(), (id, touched) -> {
+                    if (touched == null) {
+                        index(dto.getId(), dto.getTitle(), dto.getContent(), dto.getAuthor(), dto.getModifiedDate());
+                    }
+                    return touched;
+                });
+            }));
+            deleteMissing(found, reconciling);
+        } finally {
+            changed = null;
+        }
+
+        searcherManager.maybeRefresh();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true) // (4)
+    public void onPostsChanged(PostsChangedEvent event) {
+        try {
+            Map<Long, Boolean> reconciling = changed;
+            if (reconciling == null) {
+                apply(event);
+            } else {
+                reconciling.compute(event.getId(), (id, touched) -> {
+                    apply(event);
+                    return Boolean.TRUE;
+                });
+            }
+        } catch (RuntimeException e) {
+            log.warn("게시글 색인에 실패했습니다. reconcile 에서 다시 맞춥니다. (id={}, type={})", event.getId(), event.getType(), e);
+        }
+    }
+
+    /**
+     * 지금까지의 색인 변경이 검색에 보일 때까지 기다린다. (테스트에서 사용)
+     */
+    void awaitRefresh() throws InterruptedException {
+        reopenThread.waitForGeneration(lastGeneration.get());
+    }
+
+    public List<PostsSearchResponseDto> search(String keyword, int page, int size) throws IOException { // (5)
+        if (!StringUtils.hasText(keyword) || page < 0 || size <= 0) {
+            return Collections.emptyList();
+        }
+        if (page > MAX_PAGE) {
+            throw new PostsSearchPageException(page, MAX_PAGE);
+        }
+        int pageSize = Math.min(size, MAX_PAGE_SIZE);
+        int topN = Math.multiplyExact(page + 1, pageSize);
+
+        Query query;
+        try {
+            query = parse(keyword);
+        } catch (ParseException e) {
+            return Collections.emptyList();
+        }
+
+        IndexSearcher searcher = searcherManager.acquire();
+        try {
+            TopDocs topDocs = searcher.search(query, topN);
+            ScoreDoc[] scoreDocs = topDocs.scoreDocs;
+
+            List<PostsSearchResponseDto> results = new ArrayList<>();
+            for (int i = page * pageSize; i < scoreDocs.length; i++) {
+                Document document = searcher.doc(scoreDocs[i].doc);
+                results.add(new PostsSearchResponseDto(
+                        Long.valueOf(document.get(ID)),
+                        document.get(TITLE),
+                        document.get(AUTHOR),
+                        toLocalDateTime(document.get(MODIFIED_DATE)),
+                        scoreDocs[i].score));
+            }
+            return results;
+        } finally {
+            searcherManager.release(searcher);
+        }
+    }
+
+    private Query parse(String keyword) throws ParseException {
+        Map<String, Float> boosts = new HashMap<>();
+        boosts.put(TITLE, 2.0f);
+        boosts.put(CONTENT, 1.0f);
+
+        MultiFieldQueryParser parser = new MultiFieldQueryParser(new String[]{TITLE, CONTENT}, analyzer, boosts);
+        parser.setDefaultOperator(QueryParser.Operator.AND);
+
+        return parser.parse(QueryParser.escape(keyword));
+    }
+
+    private void apply(PostsChangedEvent event) {
+        switch (event.getType()) {
+            case CREATED:
+                index(event.getId(), event.getTitle(), event.getContent(), event.getAuthor(), event.getModifiedDate());
+                break;
+            case UPDATED:
+                String author = postsService.findById(event.getId()).getAuthor();
+                index(event.getId(), event.getTitle(), event.getContent(), author, event.getModifiedDate());
+                break;
+            case DELETED:
+                delete(event.getId());
+                break;
+        }
+    }
+
+    private void index(Long id, String title, String content, String author, LocalDateTime modifiedDate) {
+        Document document = new Document();
+        document.add(new StringField(ID, String.valueOf(id), Field.Store.YES));
+        document.add(new TextField(TITLE, nullToEmpty(title), Field.Store.YES));
+        document.add(new TextField(CONTENT, nullToEmpty(content), Field.Store.NO));
+        document.add(new StoredField(AUTHOR, nullToEmpty(author)));
+        document.add(new StoredField(MODIFIED_DATE, modifiedDate == null ? "" : modifiedDate.toString()));
+
+        try {
+            updated(indexWriter.updateDocument(idTerm(id), document));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void delete(Long id) {
+        try {
+            updated(indexWriter.deleteDocuments(idTerm(id)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void updated(long generation) {
+        lastGeneration.accumulateAndGet(generation, Math::max);
+    }
+
+    private void deleteMissing(Set<Long> found, Map<Long, Boolean> reconciling) throws IOException {
+        searcherManager.maybeRefreshBlocking();
+
+        IndexSearcher searcher = searcherManager.acquire();
+        try {
+            Terms terms = MultiTerms.getTerms(searcher.getIndexReader(), ID);
+            if (terms == null) {
+                return;
+            }
+            TermsEnum termsEnum = terms.iterator();
+            for (BytesRef term = termsEnum.next(); term != null; term = termsEnum.next()) {
+                Long id = Long.valueOf(term.utf8ToString());
+                if (!found.contains(id)) {
+                    reconciling.compute(id, (key, touched) -> {
+                        if (touched == null) {
+                            delete(key);
+                        }
+                        return touched;
+                    });
+                }
+            }
+        } finally {
+            searcherManager.release(searcher);
+        }
+    }
+
+    private static Term idTerm(Long id) {
+        return new Term(ID, String.valueOf(id));
+    }
+
+    private static String nullToEmpty(String value) {
+        return value == null ? "" : value;
+    }
+
+    private static LocalDateTime toLocalDateTime(String value) {
+        return StringUtils.hasText(value) ? LocalDateTime.parse(value) : null;
+    }
+}
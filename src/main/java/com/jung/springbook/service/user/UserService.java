@@ -0,0 +1,62 @@
+package com.jung.springbook.service.user;
+
+import com.jung.springbook.config.CacheConfig;
+import com.jung.springbook.config.auth.dto.OAuthAttributes;
+import com.jung.springbook.domain.user.User;
+import com.jung.springbook.domain.user.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+
+import javax.transaction.Transactional;
+import java.util.Optional;
+
+/**
+ * (1) saveOrUpdate 는
+ * 소셜 로그인 사용자를 한 트랜잭션 안에서 조회하고, 없으면 등록한다.
+ * 조회한 엔티티는 영속 상태이므로 update 후 변경 감지(dirty checking)로 이름/사진이 실제로 바뀌었을 때만 UPDATE 가 나간다.
+ * (이전처럼 준영속 엔티티를 save(merge) 하면 SELECT 를 한 번 더 하고 트랜잭션도 두 번 열게 된다.)
+ *
+ * (2) userIds 캐시는
+ * 이메일 -> 사용자 id 이다. 캐시에 있으면 email 인덱스 대신 기본키로 조회한다.
+ * 트랜잭션 안의 put 은 커밋 후에 반영되므로(TransactionAwareCacheManagerProxy) 롤백된 등록의 id 는 캐시되지 않는다.
+ *
+ * (3) 캐시된 id 로 조회한 사용자의 이메일이 다르거나 사용자가 없으면
+ * 캐시를 지우고 이메일로 다시 조회한다.
+ */
+@RequiredArgsConstructor
+@Service
+public class UserService {
+
+    private final UserRepository userRepository;
+    private final CacheManager cacheManager;
+
+    @Transactional // (1)
+    public User saveOrUpdate(OAuthAttributes attributes) {
+        User user = findByEmail(attributes.getEmail())
+                .map(entity -> entity.update(attributes.getName(), attributes.getPicture()))
+                .orElseGet(() -> userRepository.save(attributes.toEntity()));
+
+        userIds().put(attributes.getEmail(), user.getId()); // (2)
+        return user;
+    }
+
+    private Optional<User> findByEmail(String email) {
+        Long id = userIds().get(email, Long.class);
+
+        if (id != null) {
+            Optional<User> user = userRepository.findById(id);
+            if (user.isPresent() && email.equals(user.get().getEmail())) {
+                return user;
+            }
+            userIds().evict(email); // (3)
+        }
+
+        return userRepository.findByEmail(email);
+    }
+
+    private Cache userIds() {
+        return cacheManager.getCache(CacheConfig.USER_IDS);
+    }
+}
@@ -0,0 +1,44 @@
+package com.jung.springbook.web;
+
+import com.jung.springbook.service.posts.PostsNotFoundException;
+import com.jung.springbook.service.posts.PostsVersionConflictException;
+import com.jung.springbook.service.search.PostsSearchPageException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * (1) @ControllerAdvice 는
+ * 모든 컨트롤러(화면, API)에서 던진 예외를 한 곳에서 응답으로 바꾼다.
+ *
+ * (2) 응답 본문은
+ * 에러 페이지(/error)로 다시 포워드하지 않고 메시지 한 줄을 바로 쓴다. 없는 게시글 URL 을 반복해서 요청하는 크롤러에도 싸게 응답하기 위해서이다.
+ */
+@ControllerAdvice // (1)
+public class GlobalExceptionHandler {
+
+    @ExceptionHandler(PostsNotFoundException.class)
+    public ResponseEntity<String> handlePostsNotFound(PostsNotFoundException e) {
+        return response(HttpStatus.NOT_FOUND, e.getMessage());
+    }
+
+    @ExceptionHandler(PostsVersionConflictException.class)
+    public ResponseEntity<String> handlePostsVersionConflict(PostsVersionConflictException e) {
+        return response(HttpStatus.CONFLICT, e.getMessage());
+    }
+
+    @ExceptionHandler(PostsSearchPageException.class)
+    public ResponseEntity<String> handlePostsSearchPage(PostsSearchPageException e) {
+        return response(HttpStatus.BAD_REQUEST, e.getMessage());
+    }
+
+    private ResponseEntity<String> response(HttpStatus status, String message) { // (2)
+        return ResponseEntity.status(status)
+                .contentType(new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8))
+                .body(message);
+    }
+}
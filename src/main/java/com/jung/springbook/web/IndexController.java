@@ -3,25 +3,56 @@ package com.jung.springbook.web;
 import com.jung.springbook.config.auth.LoginUser;
 import com.jung.springbook.config.auth.dto.SessionUser;
 import com.jung.springbook.service.posts.PostsService;
+import com.jung.springbook.web.dto.PostsListVersionDto;
 import com.jung.springbook.web.dto.PostsResponseDto;
+import com.jung.springbook.web.dto.PostsVersionDto;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.ServletWebRequest;
 
 import javax.servlet.http.HttpSession;
+import java.time.LocalDateTime;
 
+/**
+ * (1) cursor 는
+ * "더보기" 로 다음 페이지를 요청할 때 넘어오는 마지막 게시글 id 이다. 없으면 첫 페이지를 보여준다.
+ *
+ * (2) postsTable 은
+ * 게시글 목록과 "더보기" 링크를 렌더링한 HTML 조각이다. 게시글이 변경될 때까지 캐시된 것을 그대로 쓰고 (PostsTableRenderer 참고)
+ * 로그인 사용자 이름만 요청마다 렌더링한다.
+ *
+ * (3) checkNotModified 는
+ * 요청의 ETag 가 현재 버전과 같으면 304 Not Modified 를 응답하고 null 을 반환한다. (화면을 다시 그리지 않는다)
+ * 목록은 게시글 수/최근 수정일만, 수정 화면은 버전/수정일만 먼저 조회해서 판단한다. (PostsConditionalRequests 참고)
+ * 화면에는 해시가 붙은 index.js URL 이 들어가므로 그 URL 과 정적 파일이 바뀐 시각도 함께 본다. (StaticResourceUrlAdvice 참고)
+ *
+ * (4) 목록에는 Last-Modified 를 주지 않는다.
+ * 가장 최근 수정일은 게시글이 삭제되어도 바뀌지 않아서, If-Modified-Since 만 보내는 클라이언트는 삭제된 게시글이 남은 목록을 304 로 재사용한다.
+ * 삭제로 바뀌는 게시글 수가 들어 있는 ETag 로만 판단한다.
+ */
 @RequiredArgsConstructor
 @Controller
 public class IndexController {
 
     private final PostsService postsService;
+    private final PostsTableRenderer postsTableRenderer;
     private final HttpSession httpSession;
+    private final StaticResourceUrlAdvice staticResourceUrlAdvice;
 
     @GetMapping("/")
-    public String index(Model model, @LoginUser SessionUser user){
-        model.addAttribute("posts",postsService.findAllDesc());
+    public String index(Model model, @LoginUser SessionUser user, @RequestParam(value = "cursor", required = false) Long cursor, // (1)
+                        ServletWebRequest webRequest){
+        PostsListVersionDto version = postsTableRenderer.findListVersion();
+        String etag = PostsConditionalRequests.listETag(version, cursor, user, staticResourceUrlAdvice.indexJs());
+        if (PostsConditionalRequests.checkNotModified(webRequest, etag, null)) { // (3), (4)
+            return null;
+        }
+
+        model.addAttribute("postsTable", postsTableRenderer.render(cursor)); // (2)
 
         if (user != null){
             System.out.println(user.getName());
@@ -37,7 +68,13 @@ public class IndexController {
     }
 
     @GetMapping("/posts/update/{id}")
-    public String postsUpdate(@PathVariable Long id, Model model){
+    public String postsUpdate(@PathVariable Long id, Model model, ServletWebRequest webRequest){
+        PostsVersionDto version = postsService.findVersionById(id);
+        String etag = PostsConditionalRequests.postsPageETag(id, version, staticResourceUrlAdvice.indexJs());
+        LocalDateTime lastModified = PostsConditionalRequests.pageLastModified(version.getModifiedDate(), staticResourceUrlAdvice.assetsModifiedDate());
+        if (PostsConditionalRequests.checkNotModified(webRequest, etag, lastModified)) { // (3)
+            return null;
+        }
 
         PostsResponseDto dto = postsService.findById(id);
         model.addAttribute("post", dto);
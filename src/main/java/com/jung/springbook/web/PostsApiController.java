@@ -1,31 +1,112 @@
 package com.jung.springbook.web;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.jung.springbook.service.posts.PostsService;
+import com.jung.springbook.service.posts.PostsViewCounter;
+import com.jung.springbook.service.search.PostsSearchService;
+import com.jung.springbook.web.dto.PostsExportDto;
 import com.jung.springbook.web.dto.PostsResponseDto;
 import com.jung.springbook.web.dto.PostsSaveRequestDto;
+import com.jung.springbook.web.dto.PostsSearchResponseDto;
 import com.jung.springbook.web.dto.PostsUpdateRequestDto;
+import com.jung.springbook.web.dto.PostsVersionDto;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+/**
+ * (1) export 는
+ * 전체 게시글을 NDJSON(한 줄에 JSON 하나) 형식으로 응답 스트림에 바로 쓴다.
+ * 전체 목록을 메모리에 모으지 않고 한 건씩 직렬화해서 내보내기 때문에 게시글 수와 상관없이 힙 사용량이 일정하다.
+ *
+ * (2) saveAll 은
+ * 여러 게시글을 한 번에 등록하고, 등록된 id 를 요청 순서대로 반환한다.
+ *
+ * (3) search 는
+ * 제목/본문 전문 검색 결과를 관련도 순으로 page, size 만큼 반환한다. (PostsSearchService 참고)
+ * 너무 뒤의 page 는 400 Bad Request 로 응답한다.
+ *
+ * (4) findById 는
+ * ETag, Last-Modified 를 내려주고, 요청의 If-None-Match / If-Modified-Since 가 현재 버전과 같으면
+ * 본문 없이 304 Not Modified 를 응답한다. 버전은 게시글 본문을 읽지 않고 버전과 수정일만 조회해서 확인한다.
+ *
+ * (5) 조회수는
+ * 304 응답도 조회로 보고 메모리 카운터에 더한다. 응답의 views 는 DB 에 저장된 값에 아직 저장되지 않은 값을 더한 것이다.
+ * 조회수는 버전을 바꾸지 않으므로 ETag 도 그대로이고, 304 를 받은 클라이언트는 이전에 받은 조회수를 보게 된다.
+ *
+ * (6) update 는
+ * If-Match 에 조회할 때 받은 ETag 를 보내면, 그 사이 다른 수정이 있었을 경우 덮어쓰지 않고 409 Conflict 로 응답한다.
+ * If-Match 가 없으면 이전처럼 버전 확인 없이 수정한다.
+ */
 @RequiredArgsConstructor
 @RestController
 public class PostsApiController {
 
+    private static final String NDJSON = "application/x-ndjson";
+
     private final PostsService postsService;
+    private final PostsSearchService postsSearchService;
+    private final PostsViewCounter postsViewCounter;
+    private final ObjectMapper objectMapper;
 
     @PostMapping("/api/v1/posts")
     public Long save(@RequestBody PostsSaveRequestDto requestDto){
         return postsService.save(requestDto);
     }
 
+    @PostMapping("/api/v1/posts/batch") // (2)
+    public List<Long> saveAll(@RequestBody List<PostsSaveRequestDto> requestDtos){
+        return postsService.saveAll(requestDtos);
+    }
+
     @PutMapping("/api/v1/posts/{id}")
-    public Long update (@PathVariable Long id, @RequestBody PostsUpdateRequestDto requestDto){
-        return postsService.update(id, requestDto);
+    public Long update (@PathVariable Long id, @RequestBody PostsUpdateRequestDto requestDto,
+                        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch){ // (6)
+        return postsService.update(id, requestDto, PostsConditionalRequests.expectedVersion(id, ifMatch));
     }
 
     @GetMapping("/api/v1/posts/{id}")
-    public PostsResponseDto findById (@PathVariable Long id){
-        return postsService.findById(id);
+    public PostsResponseDto findById (@PathVariable Long id, ServletWebRequest webRequest){ // (4)
+        PostsVersionDto version = postsService.findVersionById(id);
+        postsViewCounter.increment(id); // (5)
+        if (PostsConditionalRequests.checkNotModified(webRequest, PostsConditionalRequests.postsETag(id, version), version.getModifiedDate())) {
+            return null;
+        }
+        return postsService.findById(id).withPendingViews(postsViewCounter.pending(id));
+    }
+
+    @GetMapping("/api/v1/posts/search") // (3)
+    public List<PostsSearchResponseDto> search(@RequestParam("q") String q,
+                                               @RequestParam(value = "page", defaultValue = "0") int page,
+                                               @RequestParam(value = "size", defaultValue = "10") int size) throws IOException {
+        return postsSearchService.search(q, page, size);
+    }
+
+    @GetMapping("/api/v1/posts/export") // (1)
+    public void export(HttpServletResponse response) throws IOException {
+        response.setContentType(NDJSON);
+        response.setCharacterEncoding("UTF-8");
+
+        OutputStream out = response.getOutputStream();
+        ObjectWriter writer = objectMapper.writerFor(PostsExportDto.class);
+
+        postsService.exportAll(dto -> {
+            try {
+                out.write(writer.writeValueAsBytes(dto));
+                out.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        out.flush();
     }
 
     @DeleteMapping("/api/v1/posts/{id}")
@@ -0,0 +1,119 @@
+package com.jung.springbook.web;
+
+import com.jung.springbook.config.auth.dto.SessionUser;
+import com.jung.springbook.web.dto.PostsListVersionDto;
+import com.jung.springbook.web.dto.PostsVersionDto;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.StringUtils;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * 게시글 조회 응답의 ETag, Last-Modified 를 만들고 조건부 요청(If-None-Match / If-Modified-Since)을 확인한다.
+ *
+ * (1) Cache-Control 은
+ * 스프링 시큐리티 기본값(no-store)이면 브라우저가 응답을 저장하지 않아 조건부 요청 자체가 오지 않는다.
+ * 로그인한 사용자만 보는 화면이므로 private 으로 저장은 허용하고, no-cache 로 매번 서버에 다시 확인하게 한다.
+ *
+ * (2) postsETag 는
+ * 게시글 id 와 버전(@Version)으로 만든다. 수정되면 버전이 바뀌므로 ETag 도 바뀐다.
+ * 응답이 gzip 으로 압축되면 바이트가 달라지므로 약한(W/) ETag 로 내려준다. (내용이 같다는 뜻이지 바이트가 같다는 뜻이 아니다)
+ * 수정 요청은 받은 ETag 를 If-Match 로 보내고, expectedVersion 이 그 안의 버전을 꺼낸다.
+ *
+ * (3) listETag 는
+ * 목록의 버전(게시글 수, 가장 최근 수정일), 커서, 로그인 사용자로 만든다.
+ * 화면 상단에 로그인 사용자 이름이 나오기 때문에 사용자도 ETag 에 포함해야 다른 사용자의 화면이 재사용되지 않는다.
+ * 목록은 삭제로 최근 수정일이 바뀌지 않으므로 Last-Modified 없이(lastModified 를 null 로) 이 ETag 로만 확인한다.
+ *
+ * (5) 화면(HTML) 응답은
+ * 해시가 붙은 정적 파일 URL(indexJs)이 화면 안에 들어 있다. 게시글이 그대로여도 배포로 index.js 가 바뀌면 URL 이 바뀌므로
+ * postsPageETag, listETag 에 그 URL 을 포함하고, 수정 화면의 Last-Modified 는 pageLastModified 로 정적 파일이 바뀐 시각보다 이르지 않게 한다.
+ * 그렇지 않으면 304 로 예전 화면이 재사용되어 이미 없는 예전 index.js 를 요청하게 된다. (JSON 응답은 postsETag 를 그대로 쓴다)
+ *
+ * (4) expectedVersion 은
+ * If-Match 가 없거나 * 이면 null(버전 확인 없이 수정)이다. 다른 게시글의 ETag 이거나 형식이 맞지 않으면
+ * 어떤 버전과도 같지 않은 값(-1)을 돌려주어 충돌(409)로 처리되게 한다.
+ */
+final class PostsConditionalRequests {
+
+    private static final String CACHE_CONTROL = CacheControl.noCache().cachePrivate().getHeaderValue();
+    private static final long UNMATCHED_VERSION = -1;
+    private static final String WEAK_PREFIX = "W/";
+
+    private PostsConditionalRequests() {
+    }
+
+    static boolean checkNotModified(ServletWebRequest webRequest, String etag, LocalDateTime lastModified) {
+        if (webRequest.getResponse() != null) {
+            webRequest.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL); // (1)
+        }
+        return webRequest.checkNotModified(etag, toEpochMilli(lastModified));
+    }
+
+    static String postsETag(Long id, PostsVersionDto version) { // (2)
+        return WEAK_PREFIX + "\"" + id + "-" + version.getVersion() + "\"";
+    }
+
+    static String postsPageETag(Long id, PostsVersionDto version, String indexJs) { // (5)
+        String source = id + ":" + version.getVersion() + ":" + indexJs;
+        return WEAK_PREFIX + "\"" + DigestUtils.md5DigestAsHex(source.getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+
+    static LocalDateTime pageLastModified(LocalDateTime lastModified, LocalDateTime assetsModifiedDate) { // (5)
+        if (lastModified == null || lastModified.isBefore(assetsModifiedDate)) {
+            return assetsModifiedDate;
+        }
+        return lastModified;
+    }
+
+    static Long expectedVersion(Long id, String ifMatch) { // (4)
+        if (ifMatch == null || ifMatch.trim().equals("*")) {
+            return null;
+        }
+
+        String etag = ifMatch.trim();
+        if (etag.startsWith(WEAK_PREFIX)) {
+            etag = etag.substring(WEAK_PREFIX.length());
+        }
+        etag = StringUtils.trimTrailingCharacter(StringUtils.trimLeadingCharacter(etag, '"'), '"');
+
+        String prefix = id + "-";
+        if (!etag.startsWith(prefix)) {
+            return UNMATCHED_VERSION;
+        }
+        try {
+            return Long.parseLong(etag.substring(prefix.length()));
+        } catch (NumberFormatException e) {
+            return UNMATCHED_VERSION;
+        }
+    }
+
+    static String listETag(PostsListVersionDto version, Long cursor, SessionUser user, String indexJs) { // (3), (5)
+        String source = version.getCount()
+                + ":" + toEpochNano(version.getLastModifiedDate())
+                + ":" + cursor
+                + ":" + (user == null ? "" : user.getEmail() + ":" + user.getName())
+                + ":" + indexJs;
+        return WEAK_PREFIX + "\"" + DigestUtils.md5DigestAsHex(source.getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+
+    private static long toEpochMilli(LocalDateTime dateTime) {
+        if (dateTime == null) {
+            return -1;
+        }
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static long toEpochNano(LocalDateTime dateTime) {
+        if (dateTime == null) {
+            return 0;
+        }
+        long seconds = dateTime.atZone(ZoneId.systemDefault()).toEpochSecond();
+        return seconds * 1_000_000_000L + dateTime.getNano();
+    }
+}
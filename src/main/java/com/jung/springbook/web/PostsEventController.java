@@ -0,0 +1,30 @@
+package com.jung.springbook.web;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * (1) /posts/events 는
+ * 메인 화면이 게시글 변경을 받아 목록을 바로 고치기 위한 Server-Sent Events 스트림이다. (PostsEventStream 참고)
+ * 목록은 로그인하지 않아도 볼 수 있으므로 구독도 로그인 없이 허용한다.
+ *
+ * (2) X-Accel-Buffering: no 는
+ * nginx 가 응답을 모아서 보내지 않고 이벤트가 올 때마다 바로 전달하게 한다.
+ */
+@RequiredArgsConstructor
+@RestController
+public class PostsEventController {
+
+    private final PostsEventStream postsEventStream;
+
+    @GetMapping(value = "/posts/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE) // (1)
+    public SseEmitter subscribe(HttpServletResponse response) {
+        response.setHeader("X-Accel-Buffering", "no"); // (2)
+        return postsEventStream.subscribe();
+    }
+}
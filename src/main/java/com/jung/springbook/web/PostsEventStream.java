@@ -0,0 +1,236 @@
+package com.jung.springbook.web;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jung.springbook.service.posts.PostsChangedEvent;
+import com.jung.springbook.web.dto.PostsEventResponseDto;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 게시글 등록/수정/삭제를 구독 중인 화면에 Server-Sent Events 로 보낸다. (/posts/events)
+ *
+ * (1) subscribe 는
+ * 비동기 서블릿(SseEmitter)으로 응답을 열어두기만 하고 요청 스레드는 바로 돌려준다.
+ * 구독자가 몇 천 명이어도 보낼 것이 없는 동안에는 스레드를 쓰지 않는다. (연결 수는 server.tomcat.max-connections 로 제한한다)
+ *
+ * (2) onPostsChanged 는
+ * 커밋된 변경만 JSON 으로 한 번 직렬화해서 구독자별 큐에 넣는다. 커밋한 요청 스레드는 네트워크에 쓰지 않는다.
+ *
+ * (3) 구독자별 큐는
+ * bufferSize 만큼만 쌓인다. 가득 차면 그 구독자는 받는 속도가 느린 것이므로 연결을 끊는다.
+ * 브라우저의 EventSource 는 자동으로 다시 연결하고, 다시 연결되면 목록을 새로 불러온다. (index.js 참고)
+ *
+ * (4) sender 는
+ * 큐에 쌓인 이벤트를 구독자 한 명씩 순서대로 보내는 작은 스레드 풀이다. 구독자 하나는 동시에 한 스레드만 맡는다.
+ *
+ * (5) heartbeat 는
+ * 주기적으로 주석(:) 한 줄을 보낸다. 프록시가 유휴 연결을 끊지 않게 하고, 이미 끊긴 연결은 쓰기에 실패해서 정리된다.
+ *
+ * (6) readiness 가 REFUSING_TRAFFIC 이 되면 (드레인, 종료 시작. ShutdownCoordinator 참고)
+ * 모든 구독을 끝내고 새 구독은 503 으로 거절한다. 열린 연결이 graceful shutdown 을 제한 시간까지 붙잡지 않게 하고,
+ * 브라우저는 다시 연결하면서 엔진엑스가 가리키는 다른 인스턴스로 옮겨간다.
+ * 드레인을 취소해서 다시 ACCEPTING_TRAFFIC 이 되면 새 구독을 다시 받는다.
+ */
+@Component
+public class PostsEventStream {
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final ObjectMapper objectMapper;
+    private final Executor sender;
+    private final int bufferSize;
+    private final int maxSubscribers;
+    private final long timeoutMillis;
+    private final Counter dropped;
+    private volatile boolean accepting = true;
+
+    @Autowired
+    public PostsEventStream(ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                            @Value("${posts.events.buffer-size:32}") int bufferSize,
+                            @Value("${posts.events.max-subscribers:10000}") int maxSubscribers,
+                            @Value("${posts.events.timeout:30m}") Duration timeout,
+                            @Value("${posts.events.sender-threads:4}") int senderThreads) {
+        this(objectMapper, meterRegistry, bufferSize, maxSubscribers, timeout,
+                Executors.newFixedThreadPool(senderThreads, new CustomizableThreadFactory("posts-events-"))); // (4)
+    }
+
+    PostsEventStream(ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                     int bufferSize, int maxSubscribers, Duration timeout, Executor sender) {
+        this.objectMapper = objectMapper;
+        this.sender = sender;
+        this.bufferSize = bufferSize;
+        this.maxSubscribers = maxSubscribers;
+        this.timeoutMillis = timeout.toMillis();
+        this.dropped = meterRegistry.counter("posts.events.dropped");
+        Gauge.builder("posts.events.subscribers", subscribers, Set::size)
+                .description("게시글 변경 알림 구독자 수")
+                .register(meterRegistry);
+    }
+
+    public SseEmitter subscribe() { // (1)
+        if (!accepting) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "종료 중입니다.");
+        }
+        if (subscribers.size() >= maxSubscribers) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "구독자가 너무 많습니다.");
+        }
+
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Subscriber subscriber = new Subscriber(emitter, bufferSize);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        return emitter;
+    }
+
+    int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true) // (2)
+    public void onPostsChanged(PostsChangedEvent event) {
+        PostsEventResponseDto dto = new PostsEventResponseDto(event);
+        String data;
+        try {
+            data = objectMapper.writeValueAsString(dto);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+        publish(new Message(dto.getType(), data));
+    }
+
+    @Scheduled(fixedRateString = "${posts.events.heartbeat-interval:15000}") // (5)
+    public void heartbeat() {
+        publish(Message.HEARTBEAT);
+    }
+
+    @EventListener // (6)
+    public void onReadinessChanged(AvailabilityChangeEvent<ReadinessState> event) {
+        if (event.getState() == ReadinessState.REFUSING_TRAFFIC) {
+            disconnectAll();
+        } else if (event.getState() == ReadinessState.ACCEPTING_TRAFFIC) {
+            accepting = true;
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        disconnectAll();
+        if (sender instanceof ExecutorService) {
+            ((ExecutorService) sender).shutdown();
+        }
+    }
+
+    private void disconnectAll() {
+        accepting = false;
+        for (Subscriber subscriber : subscribers) {
+            subscriber.emitter.complete();
+        }
+        subscribers.clear();
+    }
+
+    private void publish(Message message) {
+        for (Subscriber subscriber : subscribers) {
+            if (!subscriber.queue.offer(message)) { // (3)
+                drop(subscriber);
+                continue;
+            }
+            schedule(subscriber);
+        }
+    }
+
+    private void schedule(Subscriber subscriber) {
+        if (subscriber.sending.compareAndSet(false, true)) {
+            sender.execute(() -> drain(subscriber));
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        try {
+            Message message;
+            while ((message = subscriber.queue.poll()) != null) {
+                subscriber.emitter.send(message.toEvent());
+            }
+        } catch (IOException | IllegalStateException e) {
+            subscribers.remove(subscriber);
+            subscriber.queue.clear();
+        } finally {
+            subscriber.sending.set(false);
+        }
+
+        if (!subscriber.queue.isEmpty() && subscribers.contains(subscriber)) {
+            schedule(subscriber);
+        }
+    }
+
+    private void drop(Subscriber subscriber) {
+        if (subscribers.remove(subscriber)) {
+            dropped.increment();
+            subscriber.queue.clear();
+            subscriber.emitter.complete();
+        }
+    }
+
+    private static final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final BlockingQueue<Message> queue;
+        private final AtomicBoolean sending = new AtomicBoolean();
+
+        private Subscriber(SseEmitter emitter, int bufferSize) {
+            this.emitter = emitter;
+            this.queue = new ArrayBlockingQueue<>(bufferSize);
+        }
+    }
+
+    /**
+     * 구독자 큐에 담는 이벤트이다. SseEventBuilder 는 보낼 때마다 새로 만들어야 해서 이름과 직렬화된 JSON 만 담아둔다.
+     */
+    private static final class Message {
+
+        private static final Message HEARTBEAT = new Message(null, null);
+
+        private final String name;
+        private final String data;
+
+        private Message(String name, String data) {
+            this.name = name;
+            this.data = data;
+        }
+
+        private SseEmitter.SseEventBuilder toEvent() {
+            if (this == HEARTBEAT) {
+                return SseEmitter.event().comment("heartbeat");
+            }
+            return SseEmitter.event().name(name).data(data, MediaType.APPLICATION_JSON);
+        }
+    }
+}
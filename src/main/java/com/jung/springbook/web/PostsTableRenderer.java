@@ -0,0 +1,93 @@
+package com.jung.springbook.web;
+
+import com.jung.springbook.config.CacheConfig;
+import com.jung.springbook.service.posts.PostsChangedEvent;
+import com.jung.springbook.service.posts.PostsService;
+import com.jung.springbook.web.dto.PostsListResponseDto;
+import com.jung.springbook.web.dto.PostsListVersionDto;
+import com.samskivert.mustache.Mustache;
+import com.samskivert.mustache.Template;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 메인 화면의 게시글 목록(posts-table.mustache)을 HTML 조각으로 렌더링하고 postsTable 캐시에 담아둔다.
+ * 목록은 게시글이 등록/수정/삭제될 때만 바뀌므로, 그 사이의 요청은 DB 조회와 템플릿 렌더링 없이 캐시된 문자열을 그대로 쓴다.
+ * 로그인 사용자 이름 같은 사용자별 영역은 index.mustache 에서 요청마다 렌더링한다.
+ *
+ * (1) Mustache.Compiler 는
+ * 스프링 부트가 만들어 둔 컴파일러(templates/ 경로, .mustache 확장자)를 그대로 사용하고, 템플릿은 한 번만 컴파일한다.
+ *
+ * (2) render 는
+ * 커서(첫 페이지는 FIRST_PAGE)별로 캐시한다. 캐시에 없을 때만 조회 후 렌더링하고, 렌더링 시간은 posts.table.render 타이머로 기록한다.
+ * 캐시 적중률은 postsTable 캐시의 cache.gets(result=hit/miss) 메트릭으로 확인할 수 있다.
+ *
+ * (3) findListVersion 은
+ * IndexController 가 ETag 를 만들 때 쓰는 목록 버전이다. 목록과 같은 시점에 바뀌므로 같은 캐시에 담는다.
+ *
+ * (4) onPostsChanged 는
+ * 게시글 변경이 커밋된 뒤에 캐시를 통째로 비운다. 커밋 이후에 실행되므로 evict/clear 처럼 다음 커밋을 기다리지 않고
+ * invalidate 로 바로 비운다. 커밋 직전에 시작된 렌더링이 이전 목록을 다시 넣는 경우는 expireAfterWrite 로 짧게 제한한다.
+ */
+@Component
+public class PostsTableRenderer {
+
+    static final int PAGE_SIZE = 20;
+
+    private static final String FIRST_PAGE = "first";
+    private static final String VERSION = "version";
+
+    private final PostsService postsService;
+    private final CacheManager cacheManager;
+    private final Template template;
+    private final Timer renderTimer;
+
+    public PostsTableRenderer(PostsService postsService, CacheManager cacheManager,
+                              Mustache.Compiler compiler, MeterRegistry meterRegistry) {
+        this.postsService = postsService;
+        this.cacheManager = cacheManager;
+        this.template = compiler.loadTemplate("posts-table"); // (1)
+        this.renderTimer = Timer.builder("posts.table.render")
+                .description("게시글 목록 HTML 조각 렌더링 시간 (캐시 miss 일 때만)")
+                .register(meterRegistry);
+    }
+
+    public String render(Long cursor) { // (2)
+        Object key = cursor == null ? FIRST_PAGE : cursor;
+        return cache().get(key, () -> renderTimer.record(() -> renderPage(cursor)));
+    }
+
+    public PostsListVersionDto findListVersion() { // (3)
+        return cache().get(VERSION, postsService::findListVersion);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true) // (4)
+    public void onPostsChanged(PostsChangedEvent event) {
+        cache().invalidate();
+    }
+
+    private String renderPage(Long cursor) {
+        List<PostsListResponseDto> posts = postsService.findAllDesc(cursor, PAGE_SIZE);
+
+        Map<String, Object> context = new HashMap<>();
+        context.put("posts", posts);
+
+        if (posts.size() == PAGE_SIZE) {
+            context.put("nextCursor", posts.get(posts.size() - 1).getId());
+        }
+
+        return template.execute(context);
+    }
+
+    private Cache cache() {
+        return cacheManager.getCache(CacheConfig.POSTS_TABLE);
+    }
+}
@@ -0,0 +1,42 @@
+package com.jung.springbook.web;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ModelAttribute;
+import org.springframework.web.servlet.resource.ResourceUrlProvider;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * 화면(mustache)에서 쓰는 정적 파일 URL 을 내용 해시가 붙은 URL 로 바꿔 모델에 넣는다. (layout/footer.mustache 의 {{indexJs}})
+ *
+ * (1) assignableTypes 는
+ * 화면을 그리는 IndexController 에만 적용한다. JSON 을 응답하는 API 컨트롤러는 모델을 쓰지 않으므로 계산하지 않는다.
+ *
+ * (2) ResourceUrlProvider 는
+ * WebConfig 의 리소스 체인으로 해시가 붙은 URL 을 찾는다. 리소스 체인이 결과를 캐시하므로 요청마다 파일을 다시 읽지 않는다.
+ *
+ * (3) assetsModifiedDate 는
+ * 이 인스턴스가 지금의 정적 파일을 내려주기 시작한 시각(빈 생성 시각)이다. 배포하면 바뀐다.
+ * 화면의 Last-Modified 를 이 시각보다 이르게 주지 않아서, 배포 전에 받은 화면이 If-Modified-Since 로 재사용되지 않게 한다. (PostsConditionalRequests 참고)
+ */
+@RequiredArgsConstructor
+@ControllerAdvice(assignableTypes = IndexController.class) // (1)
+public class StaticResourceUrlAdvice {
+
+    private static final String INDEX_JS = "/js/app/index.js";
+
+    private final ResourceUrlProvider resourceUrlProvider;
+    private final LocalDateTime assetsModifiedDate = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+
+    @ModelAttribute("indexJs")
+    public String indexJs() { // (2)
+        String url = resourceUrlProvider.getForLookupPath(INDEX_JS);
+        return url == null ? INDEX_JS : url;
+    }
+
+    public LocalDateTime assetsModifiedDate() { // (3)
+        return assetsModifiedDate;
+    }
+}
@@ -0,0 +1,28 @@
+package com.jung.springbook.web.dto;
+
+import com.jung.springbook.service.posts.PostsChangedEvent;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * 게시글 변경 알림(/posts/events)으로 보내는 Dto 이다. 목록 화면의 한 줄을 고치는 데 필요한 값만 담고 본문(content)은 보내지 않는다.
+ * 수정 이벤트에는 작성자가 없으므로 author 는 null 이다.
+ */
+@Getter
+public class PostsEventResponseDto {
+
+    private String type;
+    private Long id;
+    private String title;
+    private String author;
+    private LocalDateTime modifiedDate;
+
+    public PostsEventResponseDto(PostsChangedEvent event){
+        this.type = event.getType().name().toLowerCase();
+        this.id = event.getId();
+        this.title = event.getTitle();
+        this.author = event.getAuthor();
+        this.modifiedDate = event.getModifiedDate();
+    }
+}
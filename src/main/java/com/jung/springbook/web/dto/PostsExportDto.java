@@ -0,0 +1,29 @@
+package com.jung.springbook.web.dto;
+
+import com.jung.springbook.domain.posts.Posts;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * 분석용 전체 내보내기(/api/v1/posts/export)에서 한 줄(JSON 한 개)로 쓰이는 Dto 이다.
+ */
+@Getter
+public class PostsExportDto {
+
+    private Long id;
+    private String title;
+    private String content;
+    private String author;
+    private LocalDateTime createdDate;
+    private LocalDateTime modifiedDate;
+
+    public PostsExportDto(Posts entity){
+        this.id = entity.getId();
+        this.title = entity.getTitle();
+        this.content = entity.getContent();
+        this.author = entity.getAuthor();
+        this.createdDate = entity.getCreatedDate();
+        this.modifiedDate = entity.getModifiedDate();
+    }
+}
@@ -5,6 +5,10 @@ import lombok.Getter;
 
 import java.time.LocalDateTime;
 
+/**
+ * (1) PostsListResponseDto(id, title, author, modifiedDate) 는
+ * PostsRepository 의 생성자 표현식(SELECT new ...)에서 사용한다. 엔티티 없이 필요한 칼럼만으로 Dto 를 만든다.
+ */
 @Getter
 public class PostsListResponseDto {
 
@@ -19,4 +23,11 @@ public class PostsListResponseDto {
         this.author = entity.getAuthor();
         this.modifiedDate = entity.getModifiedDate();
     }
+
+    public PostsListResponseDto(Long id, String title, String author, LocalDateTime modifiedDate){ // (1)
+        this.id = id;
+        this.title = title;
+        this.author = author;
+        this.modifiedDate = modifiedDate;
+    }
 }
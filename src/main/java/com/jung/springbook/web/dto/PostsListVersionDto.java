@@ -0,0 +1,21 @@
+package com.jung.springbook.web.dto;
+
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * 게시글 목록이 바뀌었는지 확인하기 위한 값이다. (게시글 수, 가장 최근 수정일)
+ * 등록/수정은 lastModifiedDate 가, 삭제는 count 가 바뀌기 때문에 목록 화면의 ETag 를 만드는 데 사용한다.
+ */
+@Getter
+public class PostsListVersionDto {
+
+    private Long count;
+    private LocalDateTime lastModifiedDate;
+
+    public PostsListVersionDto(Long count, LocalDateTime lastModifiedDate){
+        this.count = count;
+        this.lastModifiedDate = lastModifiedDate;
+    }
+}
@@ -3,8 +3,15 @@ package com.jung.springbook.web.dto;
 import com.jung.springbook.domain.posts.Posts;
 import lombok.Getter;
 
+import java.time.LocalDateTime;
+
 /**
+ * version, modifiedDate 는
+ * 응답의 ETag, Last-Modified 를 만드는 데 사용한다. 수정 화면은 version 을 If-Match 로 다시 보내 낙관적 잠금에 사용한다.
  *
+ * views 는
+ * DB 에 저장된 조회수이다. 이 Dto 는 posts 캐시에 공유되어 담기므로 값을 바꾸지 않고,
+ * 아직 저장되지 않은 조회수는 withPendingViews 로 더한 복사본을 만들어 응답한다.
  */
 @Getter
 public class PostsResponseDto {
@@ -13,11 +20,31 @@ public class PostsResponseDto {
     private String title;
     private String content;
     private String author;
+    private LocalDateTime modifiedDate;
+    private Long version;
+    private long views;
 
     public PostsResponseDto(Posts entity){
         this.id = entity.getId();
         this.title = entity.getTitle();
         this.content = entity.getContent();
         this.author = entity.getAuthor();
+        this.modifiedDate = entity.getModifiedDate();
+        this.version = entity.getVersion();
+        this.views = entity.getViews();
+    }
+
+    private PostsResponseDto(PostsResponseDto source, long views){
+        this.id = source.id;
+        this.title = source.title;
+        this.content = source.content;
+        this.author = source.author;
+        this.modifiedDate = source.modifiedDate;
+        this.version = source.version;
+        this.views = views;
+    }
+
+    public PostsResponseDto withPendingViews(long pendingViews){
+        return pendingViews == 0 ? this : new PostsResponseDto(this, views + pendingViews);
     }
 }
@@ -0,0 +1,27 @@
+package com.jung.springbook.web.dto;
+
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * 검색 결과 한 건이다. 검색 색인에 저장된 값만으로 만들기 때문에 DB 를 조회하지 않는다.
+ * score 는 검색어와의 관련도 점수이며 클수록 먼저 나온다.
+ */
+@Getter
+public class PostsSearchResponseDto {
+
+    private Long id;
+    private String title;
+    private String author;
+    private LocalDateTime modifiedDate;
+    private float score;
+
+    public PostsSearchResponseDto(Long id, String title, String author, LocalDateTime modifiedDate, float score){
+        this.id = id;
+        this.title = title;
+        this.author = author;
+        this.modifiedDate = modifiedDate;
+        this.score = score;
+    }
+}
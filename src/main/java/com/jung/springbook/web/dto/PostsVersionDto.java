@@ -0,0 +1,20 @@
+package com.jung.springbook.web.dto;
+
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * 게시글 한 건의 버전이다. version 은 ETag 와 낙관적 잠금(If-Match)에, modifiedDate 는 Last-Modified 에 사용한다.
+ */
+@Getter
+public class PostsVersionDto {
+
+    private Long version;
+    private LocalDateTime modifiedDate;
+
+    public PostsVersionDto(Long version, LocalDateTime modifiedDate){
+        this.version = version;
+        this.modifiedDate = modifiedDate;
+    }
+}
@@ -12,6 +12,13 @@ var main = {
         $('#btn-delete').on('click', function () {
             _this.delete();
         });
+
+        $('#btn-more').on('click', function (event) {
+            event.preventDefault();
+            _this.more();
+        });
+
+        _this.events();
     },
     save : function () {
         var data = {
@@ -40,17 +47,24 @@ var main = {
         };
 
         var id = $('#id').val();
+        var version = $('#version').val();
 
         $.ajax({
             type: 'PUT',
             url: '/api/v1/posts/'+id,
             dataType: 'json',
             contentType:'application/json; charset=utf-8',
+            headers: {'If-Match': '"' + id + '-' + version + '"'},
             data: JSON.stringify(data)
         }).done(function() {
             alert('글이 수정되었습니다.');
             window.location.href = '/';
         }).fail(function (error) {
+            if (error.status === 409) {
+                alert('다른 사용자가 먼저 글을 수정했습니다. 최신 내용을 다시 불러옵니다.');
+                window.location.reload();
+                return;
+            }
             alert(JSON.stringify(error));
         });
     },
@@ -68,6 +82,83 @@ var main = {
         }).fail(function (error) {
             alert(JSON.stringify(error));
         });
+    },
+    more : function () {
+        var btn = $('#btn-more');
+
+        $.ajax({
+            type: 'GET',
+            url: btn.attr('href'),
+            dataType: 'html'
+        }).done(function(html) {
+            var page = $('<div>').append($.parseHTML(html));
+            var next = page.find('#btn-more');
+
+            $('#tbody').append(page.find('#tbody tr'));
+
+            if (next.length) {
+                btn.attr('href', next.attr('href'));
+            } else {
+                btn.remove();
+            }
+        }).fail(function (error) {
+            alert(JSON.stringify(error));
+        });
+    },
+    // 게시글이 등록/수정/삭제되면 서버가 보내는 이벤트(/posts/events)로 목록을 바로 고친다.
+    events : function () {
+        if (!$('#tbody').length || !window.EventSource) {
+            return;
+        }
+
+        var _this = this;
+        var source = new EventSource('/posts/events');
+        var connected = false;
+
+        source.addEventListener('open', function () {
+            // 다시 연결된 경우 끊겨 있는 동안의 변경을 놓쳤을 수 있으므로 첫 페이지를 새로 불러온다.
+            if (connected) {
+                _this.reload();
+            }
+            connected = true;
+        });
+        source.addEventListener('created', function (event) {
+            var post = JSON.parse(event.data);
+            if (!$('#post-' + post.id).length) {
+                $('#tbody').prepend(_this.row(post));
+            }
+        });
+        source.addEventListener('updated', function (event) {
+            var post = JSON.parse(event.data);
+            var row = $('#post-' + post.id);
+            row.find('.post-title').text(post.title);
+            row.find('.post-modified-date').text(post.modifiedDate);
+        });
+        source.addEventListener('deleted', function (event) {
+            $('#post-' + JSON.parse(event.data).id).remove();
+        });
+    },
+    row : function (post) {
+        return $('<tr>').attr('id', 'post-' + post.id)
+            .append($('<td>').text(post.id))
+            .append($('<td>').append($('<a>').addClass('post-title').attr('href', '/posts/update/' + post.id).text(post.title)))
+            .append($('<td>').text(post.author))
+            .append($('<td>').addClass('post-modified-date').text(post.modifiedDate));
+    },
+    reload : function () {
+        $.ajax({
+            type: 'GET',
+            url: '/',
+            dataType: 'html'
+        }).done(function(html) {
+            var page = $('<div>').append($.parseHTML(html));
+            $('#tbody').replaceWith(page.find('#tbody'));
+
+            var next = page.find('#btn-more');
+            if (next.length && $('#btn-more').length) {
+                $('#btn-more').attr('href', next.attr('href'));
+            }
+        });
     }
 
 };
@@ -0,0 +1,80 @@
+package com.jung.springbook.config.auth;
+
+import com.jung.springbook.service.posts.PostsService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
+
+/**
+ * (1) @AutoConfigureMetrics 는
+ * 테스트에서는 기본으로 꺼져 있는 메트릭 내보내기(프로메테우스 레지스트리)를 켠다.
+ *
+ * (2) withBasicAuth 는
+ * 테스트 설정(application.properties)의 actuator.user.* 계정으로 요청한다.
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(webEnvironment = RANDOM_PORT)
+@AutoConfigureMetrics // (1)
+public class ActuatorSecurityConfigTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private PostsService postsService;
+
+    @Test
+    public void 인증없이_프로메테우스_메트릭을_조회할_수_없다(){
+        // when
+        ResponseEntity<String> response = restTemplate.getForEntity("/actuator/prometheus", String.class);
+
+        // then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+    }
+
+    @Test
+    public void 프로메테우스_메트릭에_서비스_하이버네이트_커넥션풀_지표가_나온다(){
+        // given
+        postsService.findAllDesc();
+
+        // when
+        ResponseEntity<String> response = restTemplate.withBasicAuth("actuator", "test") // (2)
+                .getForEntity("/actuator/prometheus", String.class);
+
+        // then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody())
+                .contains("posts_service_seconds")
+                .contains("quantile=\"0.99\"")
+                .contains("hibernate_query_executions_total")
+                .contains("hikaricp_connections_active");
+    }
+
+    @Test
+    public void 헬스체크는_인증없이_조회된다(){
+        // when
+        ResponseEntity<String> response = restTemplate.getForEntity("/actuator/health", String.class);
+
+        // then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+    }
+
+    @Test
+    public void 레디니스_프로브는_인증없이_조회되고_시작이_끝나면_UP이다(){
+        // when
+        ResponseEntity<String> response = restTemplate.getForEntity("/actuator/health/readiness", String.class);
+
+        // then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).contains("\"status\":\"UP\"");
+    }
+}
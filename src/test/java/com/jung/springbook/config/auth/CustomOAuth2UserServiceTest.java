@@ -0,0 +1,108 @@
+package com.jung.springbook.config.auth;
+
+import com.jung.springbook.config.CacheConfig;
+import com.jung.springbook.domain.user.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.oauth2.client.registration.ClientRegistration;
+import org.springframework.security.oauth2.client.userinfo.OAuth2UserRequest;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.core.user.OAuth2User;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * (1) RequestContextHolder 는
+ * CustomOAuth2UserService 가 세션(HttpSession)에 사용자를 저장하기 때문에, 요청 안에서 호출된 것처럼 가짜 요청을 넣어둔다.
+ *
+ * (2) getRemotePorts() 가 1개이면
+ * 여러 번의 사용자 정보 요청이 연결 하나를 재사용했다는 뜻이다. (로그인마다 새 연결/TLS 핸드셰이크를 하지 않는다)
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest
+public class CustomOAuth2UserServiceTest {
+
+    private static final int LOGINS = 200;
+
+    @Autowired
+    CustomOAuth2UserService customOAuth2UserService;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    CacheManager cacheManager;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    private StubOAuth2Provider provider;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        provider = new StubOAuth2Provider("tester", "tester@test.com");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest())); // (1)
+    }
+
+    @AfterEach
+    public void cleanup(){
+        provider.close();
+        RequestContextHolder.resetRequestAttributes();
+        userRepository.deleteAllInBatch();
+        cacheManager.getCache(CacheConfig.USER_IDS).clear();
+    }
+
+    @Test
+    public void 사용자_정보_요청은_연결을_재사용한다(){
+        // given
+        OAuth2UserRequest userRequest = userRequest();
+
+        // when
+        long start = System.nanoTime();
+        OAuth2User user = null;
+        for (int i = 0; i < LOGINS; i++) {
+            user = customOAuth2UserService.loadUser(userRequest);
+        }
+        long elapsed = System.nanoTime() - start;
+        System.out.println("logins/s = " + (LOGINS * 1_000_000_000L / elapsed));
+
+        // then
+        assertThat((String) user.getAttribute("email")).isEqualTo("tester@test.com");
+        assertThat(provider.getRequests()).isEqualTo(LOGINS);
+        assertThat(provider.getRemotePorts()).hasSize(1); // (2)
+        assertThat(userRepository.count()).isEqualTo(1);
+        assertThat(meterRegistry.find("oauth2.user-info").tag("registrationId", "google").timer()).isNotNull();
+    }
+
+    private OAuth2UserRequest userRequest() {
+        ClientRegistration registration = ClientRegistration.withRegistrationId("google")
+                .clientId("test")
+                .clientSecret("test")
+                .authorizationGrantType(AuthorizationGrantType.AUTHORIZATION_CODE)
+                .redirectUri("{baseUrl}/login/oauth2/code/{registrationId}")
+                .scope("profile", "email")
+                .authorizationUri(provider.url("/authorize"))
+                .tokenUri(provider.url("/token"))
+                .userInfoUri(provider.url("/userinfo"))
+                .userNameAttributeName("sub")
+                .build();
+
+        OAuth2AccessToken accessToken = new OAuth2AccessToken(OAuth2AccessToken.TokenType.BEARER, "stub-token",
+                Instant.now(), Instant.now().plusSeconds(3600));
+
+        return new OAuth2UserRequest(registration, accessToken);
+    }
+}
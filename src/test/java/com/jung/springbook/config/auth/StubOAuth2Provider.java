@@ -0,0 +1,81 @@
+package com.jung.springbook.config.auth;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 테스트용 OAuth2 제공자이다. 실제 구글/네이버/카카오 없이 토큰, 사용자 정보 응답을 돌려준다.
+ *
+ * (1) /token 은
+ * 인가 코드 요청에 항상 같은 액세스 토큰을 응답한다.
+ *
+ * (2) /userinfo 는
+ * 구글 형식(sub, name, email, picture)의 사용자 정보를 응답한다.
+ *
+ * (3) remotePorts 는
+ * 요청을 보낸 클라이언트 포트이다. 연결이 재사용되면 여러 요청이 같은 포트에서 온다.
+ */
+public class StubOAuth2Provider implements AutoCloseable {
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+    private final Set<Integer> remotePorts = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger requests = new AtomicInteger();
+
+    public StubOAuth2Provider(String name, String email) throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/token", exchange -> respond(exchange, // (1)
+                "{\"access_token\":\"stub-token\",\"token_type\":\"Bearer\",\"expires_in\":3600}"));
+        server.createContext("/userinfo", exchange -> respond(exchange, // (2)
+                "{\"sub\":\"" + email + "\",\"name\":\"" + name + "\",\"email\":\"" + email + "\",\"picture\":\"picture\"}"));
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    public String url(String path) {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + path;
+    }
+
+    public int getRequests() {
+        return requests.get();
+    }
+
+    public Set<Integer> getRemotePorts() { // (3)
+        return remotePorts;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void respond(HttpExchange exchange, String body) throws IOException {
+        requests.incrementAndGet();
+        remotePorts.add(exchange.getRemoteAddress().getPort());
+
+        try (InputStream in = exchange.getRequestBody()) {
+            while (in.read() != -1) {
+                // 요청 본문을 끝까지 읽어야 같은 연결로 다음 요청을 받을 수 있다.
+            }
+        }
+
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json;charset=UTF-8");
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.jung.springbook.config.datasource;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * (1) primary, replica 는
+ * 서로 다른 H2 메모리 DB 이다. 각각 node 테이블에 자기 이름을 넣어두고, 어느 DB 에서 조회했는지 확인한다.
+ *
+ * (2) replicate() 는
+ * 실제 복제 대신 primary 의 heartbeat 를 replica 로 복사한다. 복사하지 않으면 replica 가 뒤처진 것과 같다.
+ */
+class ReadWriteRoutingDataSourceTest {
+
+    private DataSource primary;
+    private DataSource replica;
+    private ReplicaLagMonitor monitor;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readWrite;
+    private TransactionTemplate readOnly;
+
+    @BeforeEach
+    public void setup(){
+        primary = h2("primary"); // (1)
+        replica = h2("replica");
+        monitor = new ReplicaLagMonitor(primary, replica, Duration.ofMillis(500));
+
+        ReadWriteRoutingDataSource routingDataSource = new ReadWriteRoutingDataSource(primary, replica, monitor);
+        routingDataSource.afterPropertiesSet();
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routingDataSource);
+
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+
+    @Test
+    public void 읽기전용_트랜잭션은_replica에서_조회한다(){
+        // given
+        monitor.check();
+        replicate();
+        monitor.check();
+
+        // when
+        String read = readOnly.execute(status -> node());
+        String written = readWrite.execute(status -> node());
+
+        // then
+        assertThat(monitor.isReplicaAvailable()).isTrue();
+        assertThat(read).isEqualTo("replica");
+        assertThat(written).isEqualTo("primary");
+    }
+
+    @Test
+    public void 복제_지연이_기준보다_크면_primary에서_조회한다() throws Exception {
+        // given
+        monitor.check();
+        replicate();
+        monitor.check();
+
+        // when
+        Thread.sleep(600);
+        monitor.check();
+        String read = readOnly.execute(status -> node());
+
+        // then
+        assertThat(monitor.getLagMillis()).isGreaterThan(500);
+        assertThat(monitor.isReplicaAvailable()).isFalse();
+        assertThat(read).isEqualTo("primary");
+    }
+
+    @Test
+    public void 첫_확인_전에는_primary에서_조회한다(){
+        // when
+        String read = readOnly.execute(status -> node());
+
+        // then
+        assertThat(read).isEqualTo("primary");
+    }
+
+    private String node() {
+        return jdbcTemplate.queryForObject("SELECT name FROM node", String.class);
+    }
+
+    private void replicate() { // (2)
+        Long beat = new JdbcTemplate(primary).queryForObject("SELECT beat FROM replica_heartbeat WHERE id = 1", Long.class);
+        JdbcTemplate replicaTemplate = new JdbcTemplate(replica);
+        replicaTemplate.execute("CREATE TABLE IF NOT EXISTS replica_heartbeat (id INT NOT NULL PRIMARY KEY, beat BIGINT NOT NULL)");
+        replicaTemplate.update("DELETE FROM replica_heartbeat");
+        replicaTemplate.update("INSERT INTO replica_heartbeat (id, beat) VALUES (1, ?)", beat);
+    }
+
+    private static DataSource h2(String name) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + name + System.nanoTime() + ";DB_CLOSE_DELAY=-1");
+        dataSource.setUser("sa");
+
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE node (name VARCHAR(20))");
+        jdbcTemplate.update("INSERT INTO node (name) VALUES (?)", name);
+        return dataSource;
+    }
+}
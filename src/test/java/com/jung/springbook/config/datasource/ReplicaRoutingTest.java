@@ -0,0 +1,159 @@
+package com.jung.springbook.config.datasource;
+
+import com.jung.springbook.domain.posts.PostsRepository;
+import com.jung.springbook.service.posts.PostsService;
+import com.jung.springbook.web.dto.PostsListResponseDto;
+import com.jung.springbook.web.dto.PostsSaveRequestDto;
+import com.jung.springbook.web.dto.PostsUpdateRequestDto;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * (1) replica 는
+ * primary 와 다른 H2 메모리 DB 이다. 스프링 컨텍스트가 DataSourceConfig 로 라우팅 DataSource 를 만들고,
+ * PostsService 의 @Transactional(readOnly = true) 조회는 JpaTransactionManager 를 거쳐 커넥션을 고른다.
+ * check-interval 을 길게 두어 복제 지연 확인은 테스트에서 직접 부른다.
+ *
+ * (2) copyToReplica 는
+ * primary 의 게시글을 제목만 "replica" 로 바꿔 replica 에 넣는다. 조회 결과의 제목으로 어느 DB 에서 읽었는지 확인한다.
+ *
+ * (3) catchUp 은
+ * primary 의 heartbeat 를 replica 로 복사해서 replica 가 그 시점까지 따라온 것처럼 만든다.
+ * heartbeat 가 수정이 커밋된 시각보다 늦어야 하므로 잠깐 기다린 뒤에 쓴다.
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(properties = {
+        "spring.datasource.replica.hikari.jdbc-url=jdbc:h2:mem:replica-${random.uuid};MODE=MYSQL", // (1)
+        "spring.datasource.replica.hikari.username=sa",
+        "spring.datasource.replica.check-interval=3600000"
+})
+public class ReplicaRoutingTest {
+
+    @Autowired
+    PostsService postsService;
+
+    @Autowired
+    PostsRepository postsRepository;
+
+    @Autowired
+    ReplicaLagMonitor replicaLagMonitor;
+
+    @Autowired
+    @Qualifier("primaryDataSource")
+    DataSource primaryDataSource;
+
+    @Autowired
+    @Qualifier("replicaDataSource")
+    DataSource replicaDataSource;
+
+    private JdbcTemplate primary;
+    private JdbcTemplate replica;
+
+    @BeforeEach
+    public void setup(){
+        primary = new JdbcTemplate(primaryDataSource);
+        replica = new JdbcTemplate(replicaDataSource);
+
+        for (Map<String, Object> row : primary.queryForList("SCRIPT NODATA TABLE posts")) {
+            String sql = String.valueOf(row.values().iterator().next());
+            if (sql.startsWith("CREATE") && sql.contains("POSTS")) {
+                replica.execute(sql.replaceFirst(" TABLE ", " TABLE IF NOT EXISTS "));
+            }
+        }
+        replica.update("DELETE FROM posts");
+    }
+
+    @AfterEach
+    public void cleanup(){
+        postsRepository.deleteAllInBatch();
+    }
+
+    @Test
+    public void 읽기전용_조회는_replica에서_읽는다() throws Exception {
+        // given
+        Long id = save("primary");
+        copyToReplica(id); // (2)
+        catchUp(); // (3)
+
+        // when
+        String title = postsService.findById(id).getTitle();
+        List<String> titles = titles();
+
+        // then
+        assertThat(replicaLagMonitor.isReplicaAvailable()).isTrue();
+        assertThat(title).isEqualTo("replica");
+        assertThat(titles).containsExactly("replica");
+        assertThat(postsService.findListVersion().getCount()).isEqualTo(1L);
+    }
+
+    @Test
+    public void 직접_수정한_게시글은_replica가_따라올_때까지_primary에서_읽는다() throws Exception {
+        // given
+        Long id = save("primary");
+        copyToReplica(id);
+        catchUp();
+
+        // when
+        postsService.update(id, PostsUpdateRequestDto.builder()
+                                                     .title("updated")
+                                                     .content("content")
+                                                     .build());
+        String afterWrite = postsService.findById(id).getTitle();
+        List<String> titlesAfterWrite = titles();
+
+        catchUp();
+        List<String> titlesAfterCatchUp = titles();
+
+        // then
+        assertThat(afterWrite).isEqualTo("updated");
+        assertThat(titlesAfterWrite).containsExactly("updated");
+        assertThat(titlesAfterCatchUp).containsExactly("replica");
+    }
+
+    private Long save(String title) {
+        return postsService.save(PostsSaveRequestDto.builder()
+                                                    .title(title)
+                                                    .content("content")
+                                                    .author("author")
+                                                    .build());
+    }
+
+    private List<String> titles() {
+        return postsService.findAllDesc(null, 10).stream()
+                           .map(PostsListResponseDto::getTitle)
+                           .collect(Collectors.toList());
+    }
+
+    private void copyToReplica(Long id) {
+        Map<String, Object> row = primary.queryForMap("SELECT * FROM posts WHERE id = ?", id);
+        row.put("TITLE", "replica");
+
+        String columns = String.join(", ", row.keySet());
+        String values = row.keySet().stream().map(column -> "?").collect(Collectors.joining(", "));
+        replica.update("INSERT INTO posts (" + columns + ") VALUES (" + values + ")", row.values().toArray());
+    }
+
+    private void catchUp() throws InterruptedException {
+        Thread.sleep(10);
+        replicaLagMonitor.check();
+        Long beat = primary.queryForObject("SELECT beat FROM replica_heartbeat WHERE id = 1", Long.class);
+        replica.execute("CREATE TABLE IF NOT EXISTS replica_heartbeat (id INT NOT NULL PRIMARY KEY, beat BIGINT NOT NULL)");
+        replica.update("DELETE FROM replica_heartbeat");
+        replica.update("INSERT INTO replica_heartbeat (id, beat) VALUES (1, ?)", beat);
+        replicaLagMonitor.check();
+    }
+}
@@ -0,0 +1,173 @@
+package com.jung.springbook.config.session;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.session.FindByIndexNameSessionRepository;
+import org.springframework.session.MapSession;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * (1) CountingSessionRepository 는
+ * JDBC 세션 저장소 대신 메모리에 세션을 두고, DB 조회(findById)와 저장(save) 횟수를 센다.
+ */
+class CachingSessionRepositoryTest {
+
+    private static final Duration WRITE_INTERVAL = Duration.ofSeconds(60);
+
+    private CountingSessionRepository delegate;
+    private CachingSessionRepository repository;
+
+    @BeforeEach
+    public void setup(){
+        delegate = new CountingSessionRepository();
+        repository = new CachingSessionRepository(delegate, new SimpleMeterRegistry(), 100, Duration.ofMinutes(1), WRITE_INTERVAL);
+    }
+
+    @Test
+    public void 쓰기_간격_안의_요청은_DB를_읽거나_쓰지_않는다(){
+        //given
+        String id = login("user");
+        Instant start = repository.findById(id).getLastAccessedTime();
+        delegate.reset();
+
+        //when
+        for (int i = 1; i <= 10; i++) {
+            CachingSessionRepository.CachedSession session = repository.findById(id);
+            session.setLastAccessedTime(start.plusSeconds(i));
+            repository.save(session);
+        }
+
+        //then
+        assertThat(delegate.finds).isEqualTo(0);
+        assertThat(delegate.saves).isEqualTo(0);
+        assertThat(repository.findById(id).getLastAccessedTime()).isEqualTo(start.plusSeconds(10));
+    }
+
+    @Test
+    public void 쓰기_간격이_지나면_last_access_time을_한번_저장한다(){
+        //given
+        String id = login("user");
+        Instant start = repository.findById(id).getLastAccessedTime();
+        delegate.reset();
+
+        //when
+        CachingSessionRepository.CachedSession session = repository.findById(id);
+        session.setLastAccessedTime(start.plus(WRITE_INTERVAL));
+        repository.save(session);
+
+        CachingSessionRepository.CachedSession next = repository.findById(id);
+        next.setLastAccessedTime(start.plus(WRITE_INTERVAL).plusSeconds(1));
+        repository.save(next);
+
+        //then
+        assertThat(delegate.saves).isEqualTo(1);
+        assertThat(delegate.sessions.get(id).getLastAccessedTime()).isEqualTo(start.plus(WRITE_INTERVAL));
+    }
+
+    @Test
+    public void 요청이_계속되어도_expire_after_write_가_지나면_DB에서_다시_읽는다() throws Exception {
+        //given
+        repository = new CachingSessionRepository(delegate, new SimpleMeterRegistry(), 100, Duration.ofMillis(200), WRITE_INTERVAL);
+        String id = login("user");
+        Instant start = repository.findById(id).getLastAccessedTime();
+        delegate.reset();
+
+        //when
+        for (int i = 1; i <= 8; i++) {
+            CachingSessionRepository.CachedSession session = repository.findById(id);
+            session.setLastAccessedTime(start.plusSeconds(i));
+            repository.save(session);
+            Thread.sleep(50);
+        }
+
+        //then
+        assertThat(delegate.finds).isGreaterThan(0);
+        assertThat(delegate.saves).isEqualTo(0);
+    }
+
+    @Test
+    public void 속성_변경은_바로_DB에_저장되고_캐시에도_반영된다(){
+        //given
+        String id = login("user");
+
+        //when
+        CachingSessionRepository.CachedSession session = repository.findById(id);
+        session.setAttribute("user", "changed");
+        repository.save(session);
+
+        //then
+        assertThat((String) delegate.sessions.get(id).getAttribute("user")).isEqualTo("changed");
+        assertThat((String) repository.findById(id).getAttribute("user")).isEqualTo("changed");
+    }
+
+    @Test
+    public void 세션이_삭제되면_캐시에서도_지워진다(){
+        //given
+        String id = login("user");
+        repository.findById(id);
+
+        //when
+        repository.deleteById(id);
+
+        //then
+        assertThat(repository.findById(id)).isNull();
+    }
+
+    private String login(String user) {
+        CachingSessionRepository.CachedSession session = repository.createSession();
+        session.setAttribute("user", user);
+        repository.save(session);
+        return session.getId();
+    }
+
+    static class CountingSessionRepository implements FindByIndexNameSessionRepository<MapSession> { // (1)
+
+        private final Map<String, MapSession> sessions = new HashMap<>();
+        private int finds;
+        private int saves;
+
+        void reset() {
+            finds = 0;
+            saves = 0;
+        }
+
+        @Override
+        public MapSession createSession() {
+            return new MapSession();
+        }
+
+        @Override
+        public void save(MapSession session) {
+            saves++;
+            if (!session.getId().equals(session.getOriginalId())) {
+                sessions.remove(session.getOriginalId());
+            }
+            sessions.put(session.getId(), new MapSession(session));
+        }
+
+        @Override
+        public MapSession findById(String id) {
+            finds++;
+            MapSession session = sessions.get(id);
+            return session == null ? null : new MapSession(session);
+        }
+
+        @Override
+        public void deleteById(String id) {
+            sessions.remove(id);
+        }
+
+        @Override
+        public Map<String, MapSession> findByIndexNameAndIndexValue(String indexName, String indexValue) {
+            return Collections.emptyMap();
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.jung.springbook.config.shutdown;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
+
+/**
+ * (1) @DirtiesContext 는
+ * 드레인한 컨텍스트(readiness 가 내려가고 구독을 받지 않는)를 다른 테스트가 재사용하지 않게 한다.
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(webEnvironment = RANDOM_PORT)
+@DirtiesContext // (1)
+public class DrainEndpointTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Test
+    public void 인증없이_드레인을_시작할_수_없다(){
+        // when
+        ResponseEntity<String> response = restTemplate.postForEntity("/actuator/drain", null, String.class);
+
+        // then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+    }
+
+    @Test
+    public void 드레인하면_readiness가_내려가고_새_구독을_거절한다(){
+        // when
+        ResponseEntity<String> drain = restTemplate.withBasicAuth("actuator", "test")
+                .postForEntity("/actuator/drain", null, String.class);
+
+        // then
+        assertThat(drain.getStatusCode()).isEqualTo(HttpStatus.OK);
+
+        ResponseEntity<String> status = restTemplate.getForEntity("/actuator/drain", String.class);
+        assertThat(status.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(status.getBody()).contains("\"state\":\"DRAINING\"").contains("\"inFlight\":0");
+
+        ResponseEntity<String> readiness = restTemplate.getForEntity("/actuator/health/readiness", String.class);
+        assertThat(readiness.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+
+        ResponseEntity<String> events = restTemplate.getForEntity("/posts/events", String.class);
+        assertThat(events.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+    }
+}
@@ -0,0 +1,53 @@
+package com.jung.springbook.config.warmup;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
+
+/**
+ * (1) warmup.* 는
+ * 테스트 설정에서는 꺼져 있으므로 이 테스트에서만 켜고, 요청 수를 줄여서 빨리 끝나게 한다.
+ * 데우기는 컨텍스트가 뜰 때(ApplicationRunner) 이미 실행된다.
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(webEnvironment = RANDOM_PORT, properties = {
+        "warmup.enabled=true", "warmup.iterations=30", "warmup.windows=3"}) // (1)
+public class WarmupRunnerTest {
+
+    @Autowired
+    private WarmupRunner warmupRunner;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Test
+    public void 시작할때_정해진_횟수만큼_데우고_구간별_지연시간을_남긴다(){
+        // when
+        WarmupReport report = warmupRunner.getReport();
+
+        // then
+        assertThat(report.getIterations()).isEqualTo(30);
+        assertThat(report.getFailures()).isEqualTo(0);
+        assertThat(report.getCurve()).hasSize(3);
+        assertThat(report.getCurve().get(2).getToIteration()).isEqualTo(30);
+    }
+
+    @Test
+    public void 데우기_결과는_actuator로_조회된다(){
+        // when
+        ResponseEntity<String> response = restTemplate.withBasicAuth("actuator", "test")
+                .getForEntity("/actuator/warmup", String.class);
+
+        // then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).contains("\"iterations\":30").contains("\"p99Micros\"");
+    }
+}
@@ -1,17 +1,25 @@
 package com.jung.springbook.domain.posts;
 
 
+import com.jung.springbook.web.dto.PostsListResponseDto;
+import org.hibernate.SessionFactory;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import javax.persistence.EntityManagerFactory;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * (1) @AfterEach 는
@@ -28,15 +36,25 @@ import java.util.List;
  *
  * (4) @SpringBootTest 는
  * 자동으로 H2 데이터베이스를 실행해준다.
+ *
+ * (5) 압축 헤더로 시작하는 본문은
+ * 압축이 꺼져 있어도(기본값) 압축된 값으로 잘못 읽히지 않아야 한다. (PostsContentCodec 참고)
+ *
+ * (6) 목록 조회는
+ * 엔티티를 하나도 만들지 않고(entity load 0), 실행된 SQL 에도 content 칼럼이 없어야 한다.
+ * SQL 은 statement_inspector 로 등록한 SqlCapture 가 모은다.
  */
 
 @ExtendWith(SpringExtension.class)
-@SpringBootTest //(4)
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.jung.springbook.domain.posts.PostsRepositoryTest$SqlCapture") //(4)
 public class PostsRepositoryTest {
 
     @Autowired
     PostsRepository postsRepository;
 
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
     @AfterEach // (1)
     public void cleanup(){
         postsRepository.deleteAll();
@@ -63,6 +81,24 @@ public class PostsRepositoryTest {
         assertThat(posts.getContent()).isEqualTo(content);
     }
 
+    @Test
+    public void 압축_헤더처럼_보이는_본문도_그대로_불러온다(){
+        // given
+        String content = PostsContentCodec.PREFIX + "hello"; // (5)
+
+        Long id = postsRepository.save(Posts.builder()
+                                            .title("title")
+                                            .content(content)
+                                            .author("author")
+                                            .build()).getId();
+
+        // when
+        Posts posts = postsRepository.findById(id).get();
+
+        // then
+        assertThat(posts.getContent()).isEqualTo(content);
+    }
+
     @Test
     public void BaseTimeEntity_등록(){
 
@@ -85,4 +121,61 @@ public class PostsRepositoryTest {
         assertThat(posts.getCreatedDate()).isAfter(now); // isAfter 는 인자보다 미래일때 true 반환.
         assertThat(posts.getModifiedDate()).isAfter(now);
     }
+
+    @Test
+    public void 커서_이전_게시글만_최신순으로_조회된다(){
+        // given
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            ids.add(postsRepository.save(Posts.builder()
+                                        .title("title" + i)
+                                        .content("content" + i)
+                                        .author("author")
+                                        .build()).getId());
+        }
+
+        // when
+        List<PostsListResponseDto> postsList = postsRepository.findAllDesc(ids.get(3), PageRequest.of(0, 2));
+
+        // then
+        assertThat(postsList).extracting(PostsListResponseDto::getId).containsExactly(ids.get(2), ids.get(1));
+    }
+
+    @Test
+    public void 목록조회는_content_칼럼을_읽지_않는다(){
+        // given
+        for (int i = 0; i < 3; i++) {
+            postsRepository.save(Posts.builder()
+                                        .title("title" + i)
+                                        .content("content" + i)
+                                        .author("author")
+                                        .build());
+        }
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        SqlCapture.statements.clear();
+
+        // when
+        List<PostsListResponseDto> postsList = postsRepository.findAllDesc();
+
+        // then
+        assertThat(postsList).hasSize(3);
+        assertThat(statistics.getEntityLoadCount()).isZero(); // (6)
+        assertThat(SqlCapture.statements).hasSize(1);
+        assertThat(SqlCapture.statements.get(0)).contains("title").doesNotContain("content");
+    }
+
+    /**
+     * 하이버네이트가 실행하는 SQL 을 모은다. (spring.jpa.properties.hibernate.session_factory.statement_inspector)
+     */
+    public static class SqlCapture implements StatementInspector {
+
+        static final List<String> statements = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            statements.add(sql.toLowerCase());
+            return sql;
+        }
+    }
 }
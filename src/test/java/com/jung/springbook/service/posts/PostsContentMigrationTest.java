@@ -0,0 +1,148 @@
+package com.jung.springbook.service.posts;
+
+import com.jung.springbook.config.CacheConfig;
+import com.jung.springbook.domain.posts.PostsContentCodec;
+import com.jung.springbook.domain.posts.PostsRepository;
+import com.jung.springbook.web.dto.PostsSaveRequestDto;
+import com.jung.springbook.web.dto.PostsUpdateRequestDto;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * (1) posts.content.compression.* 는
+ * 테스트 설정에서는 꺼져 있으므로 이 테스트에서만 켜고, 100 바이트 이상이면 압축하게 한다.
+ *
+ * (2) rawContent 는
+ * 컨버터를 거치지 않고 DB 에 저장된 값을 그대로 읽는다.
+ *
+ * (3) 압축 기능을 켜기 전에 저장된 행처럼
+ * 압축하지 않은 본문을 JDBC 로 직접 넣는다. 다른 테스트가 시퀀스로 받아둔 id 와 겹치지 않도록 FIRST_ID 부터 쓴다.
+ *
+ * (4) 압축 헤더로 시작하는 본문은
+ * 사용자가 JSON 으로 보낼 수 있는 값이다. 새로 저장한 행은 RAW_PREFIX 가 붙고, 이전에 그대로 저장된 행(FIRST_ID)도 오류 없이 읽혀야 한다.
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(properties = {"posts.content.compression.enabled=true", "posts.content.compression.threshold=100",
+        "posts.content.compression.pause=0ms"}) // (1)
+public class PostsContentMigrationTest {
+
+    private static final long FIRST_ID = 2_000_000L;
+
+    @Autowired
+    PostsContentMigration postsContentMigration;
+
+    @Autowired
+    PostsService postsService;
+
+    @Autowired
+    PostsRepository postsRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    CacheManager cacheManager;
+
+    @AfterEach
+    public void cleanup(){
+        postsRepository.deleteAllInBatch();
+        cacheManager.getCache(CacheConfig.POSTS).clear();
+    }
+
+    @Test
+    public void 긴_본문은_압축해서_저장하고_풀어서_읽는다(){
+        // given
+        String content = longContent("본문");
+
+        // when
+        Long id = postsService.save(PostsSaveRequestDto.builder().title("title").content(content).author("author").build());
+
+        // then
+        assertThat(PostsContentCodec.isCompressed(rawContent(id))).isTrue();
+        assertThat(rawContent(id).length()).isLessThan(content.length());
+        assertThat(postsRepository.findById(id).get().getContent()).isEqualTo(content);
+    }
+
+    @Test
+    public void 짧은_본문은_압축하지_않는다(){
+        // when
+        Long id = postsService.save(PostsSaveRequestDto.builder().title("title").content("짧은 본문").author("author").build());
+
+        // then
+        assertThat(rawContent(id)).isEqualTo("짧은 본문");
+    }
+
+    @Test
+    public void 수정한_본문도_압축해서_저장한다(){
+        // given
+        Long id = postsService.save(PostsSaveRequestDto.builder().title("title").content("짧은 본문").author("author").build());
+        String content = longContent("수정");
+
+        // when
+        postsService.update(id, PostsUpdateRequestDto.builder().title("title2").content(content).build());
+
+        // then
+        assertThat(PostsContentCodec.isCompressed(rawContent(id))).isTrue();
+        assertThat(postsService.findById(id).getContent()).isEqualTo(content);
+    }
+
+    @Test
+    public void 압축_헤더처럼_보이는_본문도_그대로_저장하고_읽는다(){
+        // given
+        String content = "\u0001Z1:hello"; // (4)
+
+        // when
+        Long id = postsService.save(PostsSaveRequestDto.builder().title("title").content(content).author("author").build());
+        jdbcTemplate.update("INSERT INTO posts (id, title, content, author, created_date, modified_date) VALUES (?, ?, ?, ?, ?, ?)",
+                FIRST_ID, "title", content, "author", LocalDateTime.now(), LocalDateTime.now());
+
+        // then
+        assertThat(postsRepository.findById(id).get().getContent()).isEqualTo(content);
+        assertThat(postsRepository.findById(FIRST_ID).get().getContent()).isEqualTo(content);
+        assertThat(postsContentMigration.migrate().getCompressed()).isEqualTo(0);
+    }
+
+    @Test
+    public void 기존_행을_조금씩_압축하고_같은_본문으로_읽는다(){
+        // given
+        String content = longContent("기존");
+        for (long id = FIRST_ID + 1; id <= FIRST_ID + 450; id++) { // (3)
+            jdbcTemplate.update("INSERT INTO posts (id, title, content, author, created_date, modified_date) VALUES (?, ?, ?, ?, ?, ?)",
+                    id, "title" + id, (id - FIRST_ID) % 3 == 0 ? "짧은 본문" : content, "author", LocalDateTime.now(), LocalDateTime.now());
+        }
+
+        // when
+        PostsContentMigration.Result result = postsContentMigration.migrate();
+
+        // then
+        assertThat(result.getScanned()).isEqualTo(450);
+        assertThat(result.getCompressed()).isEqualTo(300);
+        assertThat(result.getBytesAfter()).isLessThan(result.getBytesBefore());
+        assertThat(PostsContentCodec.isCompressed(rawContent(FIRST_ID + 1))).isTrue();
+        assertThat(rawContent(FIRST_ID + 3)).isEqualTo("짧은 본문");
+        assertThat(postsRepository.findById(FIRST_ID + 1).get().getContent()).isEqualTo(content);
+        assertThat(postsContentMigration.migrate().getCompressed()).isEqualTo(0);
+    }
+
+    private String rawContent(Long id) { // (2)
+        return jdbcTemplate.queryForObject("SELECT content FROM posts WHERE id = ?", String.class, id);
+    }
+
+    private static String longContent(String word) {
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 50; i++) {
+            content.append(word).append(" 스프링 부트로 시작하는 웹 서비스 ").append(i).append('\n');
+        }
+        return content.toString();
+    }
+}
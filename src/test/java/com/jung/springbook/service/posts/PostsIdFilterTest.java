@@ -0,0 +1,119 @@
+package com.jung.springbook.service.posts;
+
+import com.jung.springbook.domain.posts.Posts;
+import com.jung.springbook.domain.posts.PostsRepository;
+import com.jung.springbook.web.dto.PostsSaveRequestDto;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * (1) getPrepareStatementCount 는
+ * 하이버네이트가 실행한 SQL 수이다. 없는 게시글 조회 전후로 값이 같으면 DB 를 거치지 않았다는 뜻이다.
+ *
+ * (2) 3_000_001 은
+ * 이 인스턴스가 등록한 게시글(onPostsChanged)이고, 3_000_000 은 다른 인스턴스가 먼저 받아둔 시퀀스 구간으로 나중에 등록한 게시글이다.
+ * 시퀀스로 받는 id 와 겹치지 않도록 큰 id 를 쓴다.
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest
+public class PostsIdFilterTest {
+
+    @Autowired
+    PostsIdFilter postsIdFilter;
+
+    @Autowired
+    PostsService postsService;
+
+    @Autowired
+    PostsRepository postsRepository;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    public void cleanup(){
+        postsRepository.deleteAllInBatch();
+        postsIdFilter.rebuild();
+    }
+
+    @Test
+    public void 삭제된_게시글은_DB를_조회하지_않고_없다고_응답한다(){
+        // given
+        Long kept = save();
+        Long deleted = save();
+        postsIdFilter.rebuild();
+        postsService.delete(deleted);
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        long statements = statistics.getPrepareStatementCount();
+
+        // when, then
+        assertThatThrownBy(() -> postsService.findVersionById(deleted)).isInstanceOf(PostsNotFoundException.class);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(statements); // (1)
+        assertThat(postsIdFilter.mightContain(kept)).isTrue();
+        assertThat(postsIdFilter.mightContain(0L)).isFalse();
+    }
+
+    @Test
+    public void 필터를_만든_뒤_등록된_게시글은_있을_수_있다고_본다(){
+        // given
+        postsIdFilter.rebuild();
+
+        // when
+        Long id = save();
+        Long later = postsRepository.save(Posts.builder()
+                .title("title")
+                .content("content")
+                .author("author")
+                .build()).getId();
+
+        // then
+        assertThat(postsIdFilter.mightContain(id)).isTrue();
+        assertThat(postsIdFilter.mightContain(later)).isTrue();
+        assertThat(postsService.findById(later).getTitle()).isEqualTo("title");
+    }
+
+    @Test
+    public void 다른_인스턴스가_더_작은_id로_등록한_게시글도_있을_수_있다고_본다(){
+        // given
+        postsIdFilter.rebuild();
+        insert(3_000_001L); // (2)
+        postsIdFilter.onPostsChanged(PostsChangedEvent.created(postsRepository.findById(3_000_001L).get()));
+
+        // when
+        insert(3_000_000L);
+
+        // then
+        assertThat(postsIdFilter.mightContain(3_000_000L)).isTrue();
+        assertThat(postsService.findById(3_000_000L).getTitle()).isEqualTo("title");
+    }
+
+    private void insert(Long id) {
+        jdbcTemplate.update("INSERT INTO posts (id, title, content, author, created_date, modified_date) VALUES (?, ?, ?, ?, ?, ?)",
+                id, "title", "content", "author", LocalDateTime.now(), LocalDateTime.now());
+    }
+
+    private Long save() {
+        return postsService.save(PostsSaveRequestDto.builder()
+                .title("title")
+                .content("content")
+                .author("author")
+                .build());
+    }
+}
@@ -0,0 +1,252 @@
+package com.jung.springbook.service.posts;
+
+import com.jung.springbook.config.CacheConfig;
+import com.jung.springbook.domain.posts.Posts;
+import com.jung.springbook.domain.posts.PostsRepository;
+import com.jung.springbook.web.dto.PostsResponseDto;
+import com.jung.springbook.web.dto.PostsUpdateRequestDto;
+import org.hibernate.Session;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * (1) postsRepository 로 직접 수정하면
+ * PostsService 를 거치지 않기 때문에 캐시가 비워지지 않는다. 두 번째 조회가 DB 가 아닌 캐시에서 나왔는지 확인하는 용도이다.
+ *
+ * (2) jdbcTemplate.batchUpdate 는
+ * 대량의 테스트 데이터를 JPA 를 거치지 않고 빠르게 넣기 위해 사용한다.
+ *
+ * (3) getEntityCount() 는
+ * 현재 영속성 컨텍스트가 관리 중인 엔티티 수이다. 내보내는 동안 이 값이 1 을 넘지 않으면
+ * 읽은 엔티티가 쌓이지 않는다는 뜻이므로, 행 수와 상관없이 메모리 사용량이 일정하다는 것을 확인할 수 있다.
+ *
+ * (4) 제목을 숫자로 두고
+ * 여러 스레드가 각자 읽은 값에 1 을 더해 저장한다. 충돌하면 다시 읽어서 재시도한다.
+ * 잃어버린 수정이 하나라도 있으면 최종 값이 성공한 수정 횟수보다 작아진다.
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest
+public class PostsServiceTest {
+
+    @Autowired
+    PostsService postsService;
+
+    @Autowired
+    PostsRepository postsRepository;
+
+    @Autowired
+    CacheManager cacheManager;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @PersistenceContext
+    EntityManager entityManager;
+
+    @AfterEach
+    public void cleanup(){
+        postsRepository.deleteAllInBatch();
+        cacheManager.getCache(CacheConfig.POSTS).clear();
+    }
+
+    @Test
+    public void 단건조회는_캐시에서_반환된다(){
+        // given
+        Posts posts = postsRepository.save(Posts.builder()
+                                                .title("title")
+                                                .content("content")
+                                                .author("author")
+                                                .build());
+        postsService.findById(posts.getId());
+
+        // when
+        posts.update("title2", "content2");
+        postsRepository.save(posts); // (1)
+        PostsResponseDto dto = postsService.findById(posts.getId());
+
+        // then
+        assertThat(dto.getTitle()).isEqualTo("title");
+    }
+
+    @Test
+    public void 수정하면_캐시가_비워진다(){
+        // given
+        Long id = postsRepository.save(Posts.builder()
+                                            .title("title")
+                                            .content("content")
+                                            .author("author")
+                                            .build()).getId();
+        postsService.findById(id);
+
+        // when
+        postsService.update(id, PostsUpdateRequestDto.builder()
+                                                    .title("title2")
+                                                    .content("content2")
+                                                    .build());
+        PostsResponseDto dto = postsService.findById(id);
+
+        // then
+        assertThat(dto.getTitle()).isEqualTo("title2");
+        assertThat(dto.getContent()).isEqualTo("content2");
+    }
+
+    @Test
+    public void 수정은_modifiedDate_를_갱신한다(){
+        // given
+        Posts saved = postsRepository.save(Posts.builder()
+                                                .title("title")
+                                                .content("content")
+                                                .author("author")
+                                                .build());
+
+        // when
+        postsService.update(saved.getId(), PostsUpdateRequestDto.builder()
+                                                                .title("title2")
+                                                                .content("content2")
+                                                                .build());
+
+        // then
+        Posts updated = postsRepository.findById(saved.getId()).get();
+        assertThat(updated.getTitle()).isEqualTo("title2");
+        assertThat(updated.getModifiedDate()).isAfter(saved.getModifiedDate());
+        assertThat(updated.getCreatedDate()).isEqualTo(saved.getCreatedDate());
+    }
+
+    @Test
+    public void 없는_게시글은_수정_삭제할_수_없다(){
+        PostsUpdateRequestDto requestDto = PostsUpdateRequestDto.builder()
+                                                                .title("title")
+                                                                .content("content")
+                                                                .build();
+
+        assertThatThrownBy(() -> postsService.update(-1L, requestDto)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> postsService.delete(-1L)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void 동시에_수정해도_잃어버리는_수정이_없다() throws Exception {
+        // given
+        Long id = postsRepository.save(Posts.builder()
+                                            .title("0")
+                                            .content("content")
+                                            .author("author")
+                                            .build()).getId();
+        int writers = 8;
+        int updatesPerWriter = 25;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(writers);
+        List<Future<Object>> futures = new ArrayList<>();
+
+        // when
+        for (int w = 0; w < writers; w++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                int done = 0;
+                while (done < updatesPerWriter) {
+                    Posts current = postsRepository.findById(id).get(); // (4)
+                    String next = String.valueOf(Integer.parseInt(current.getTitle()) + 1);
+                    try {
+                        postsService.update(id, PostsUpdateRequestDto.builder()
+                                                                    .title(next)
+                                                                    .content("content")
+                                                                    .build(), current.getVersion());
+                        done++;
+                    } catch (PostsVersionConflictException e) {
+                        // 다른 스레드가 먼저 수정했으므로 다시 읽어서 재시도한다.
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<Object> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // then
+        Posts updated = postsRepository.findById(id).get();
+        assertThat(updated.getTitle()).isEqualTo(String.valueOf(writers * updatesPerWriter));
+        assertThat(updated.getVersion()).isEqualTo(writers * updatesPerWriter);
+    }
+
+    @Test
+    public void 버전이_다르면_수정하지_않고_충돌로_처리한다(){
+        // given
+        Posts saved = postsRepository.save(Posts.builder()
+                                                .title("title")
+                                                .content("content")
+                                                .author("author")
+                                                .build());
+        PostsUpdateRequestDto requestDto = PostsUpdateRequestDto.builder()
+                                                                .title("title2")
+                                                                .content("content2")
+                                                                .build();
+        postsService.update(saved.getId(), requestDto, saved.getVersion());
+
+        // when, then
+        assertThatThrownBy(() -> postsService.update(saved.getId(), requestDto, saved.getVersion()))
+                .isInstanceOf(PostsVersionConflictException.class);
+        assertThatThrownBy(() -> postsService.update(-1L, requestDto, 0L))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(postsRepository.findById(saved.getId()).get().getVersion()).isEqualTo(saved.getVersion() + 1);
+    }
+
+    @Test
+    public void 전체_내보내기는_엔티티를_쌓지_않고_한건씩_넘긴다(){
+        // given
+        int rows = 20000;
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            content.append('가');
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        List<Object[]> batchArgs = new ArrayList<>();
+        for (int i = 0; i < rows; i++) {
+            batchArgs.add(new Object[]{1_000_000L + i, "title" + i, content.toString(), "author", now, now});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO posts (id, title, content, author, created_date, modified_date) VALUES (?, ?, ?, ?, ?, ?)", batchArgs); // (2)
+
+        // when
+        AtomicInteger exported = new AtomicInteger();
+        AtomicLong lastId = new AtomicLong();
+        AtomicInteger maxManagedEntities = new AtomicInteger();
+
+        postsService.exportAll(dto -> {
+            int managed = entityManager.unwrap(Session.class).getStatistics().getEntityCount(); // (3)
+            maxManagedEntities.set(Math.max(maxManagedEntities.get(), managed));
+
+            assertThat(dto.getId()).isGreaterThan(lastId.get());
+            lastId.set(dto.getId());
+            exported.incrementAndGet();
+        });
+
+        // then
+        assertThat(exported.get()).isEqualTo(rows);
+        assertThat(maxManagedEntities.get()).isLessThanOrEqualTo(1);
+    }
+}
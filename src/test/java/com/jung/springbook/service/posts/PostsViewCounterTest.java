@@ -0,0 +1,144 @@
+package com.jung.springbook.service.posts;
+
+import com.jung.springbook.config.CacheConfig;
+import com.jung.springbook.domain.posts.Posts;
+import com.jung.springbook.domain.posts.PostsRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * (1) flush 전에는
+ * 조회수가 메모리에만 있고 DB 의 views 는 그대로이다.
+ *
+ * (2) posts 캐시에 담긴 Dto 는
+ * flush 하면서 지워지기 때문에 다시 조회하면 저장된 조회수를 읽는다.
+ *
+ * (3) flush 를 쉬지 않고 반복하면
+ * 조회가 잠깐 없는 사이에 카운터가 맵에서 지워지는 경우가 자주 생긴다. 그때 들어온 조회도 모두 저장되어야 한다.
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest
+public class PostsViewCounterTest {
+
+    @Autowired
+    PostsViewCounter postsViewCounter;
+
+    @Autowired
+    PostsService postsService;
+
+    @Autowired
+    PostsRepository postsRepository;
+
+    @Autowired
+    CacheManager cacheManager;
+
+    @AfterEach
+    public void cleanup(){
+        postsViewCounter.flush();
+        postsRepository.deleteAllInBatch();
+        cacheManager.getCache(CacheConfig.POSTS).clear();
+    }
+
+    @Test
+    public void 동시에_조회해도_조회수가_모두_저장된다() throws Exception {
+        // given
+        Long id = save();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        // when
+        for (int i = 0; i < 1000; i++) {
+            executor.execute(() -> postsViewCounter.increment(id));
+        }
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+
+        // then
+        assertThat(postsViewCounter.pending(id)).isEqualTo(1000);
+        assertThat(postsRepository.findById(id).get().getViews()).isEqualTo(0); // (1)
+
+        postsViewCounter.flush();
+
+        assertThat(postsViewCounter.pending(id)).isEqualTo(0);
+        assertThat(postsRepository.findById(id).get().getViews()).isEqualTo(1000);
+    }
+
+    @Test
+    public void 조회와_flush_가_동시에_일어나도_조회수를_잃지_않는다() throws Exception {
+        // given
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            ids.add(save());
+        }
+        int threads = 8;
+        int incrementsPerThread = 20000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads + 1);
+        AtomicBoolean running = new AtomicBoolean(true);
+
+        // when
+        executor.execute(() -> { // (3)
+            while (running.get()) {
+                postsViewCounter.flush();
+            }
+        });
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int offset = t;
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < incrementsPerThread; i++) {
+                    postsViewCounter.increment(ids.get((i * 31 + offset) % ids.size()));
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        running.set(false);
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+        postsViewCounter.flush();
+
+        // then
+        long saved = postsRepository.findAllById(ids).stream().mapToLong(Posts::getViews).sum();
+        assertThat(saved).isEqualTo((long) threads * incrementsPerThread);
+    }
+
+    @Test
+    public void 응답의_조회수는_저장된_값과_저장되지_않은_값의_합이다(){
+        // given
+        Long id = save();
+        postsService.findById(id);
+        postsViewCounter.increment(id);
+        postsViewCounter.increment(id);
+        postsViewCounter.flush();
+
+        // when
+        postsViewCounter.increment(id);
+        long views = postsService.findById(id).withPendingViews(postsViewCounter.pending(id)).getViews(); // (2)
+
+        // then
+        assertThat(views).isEqualTo(3);
+    }
+
+    private Long save() {
+        return postsRepository.save(Posts.builder()
+                .title("title")
+                .content("content")
+                .author("author")
+                .build()).getId();
+    }
+}
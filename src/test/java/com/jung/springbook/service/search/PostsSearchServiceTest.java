@@ -0,0 +1,152 @@
+package com.jung.springbook.service.search;
+
+import com.jung.springbook.domain.posts.PostsRepository;
+import com.jung.springbook.service.posts.PostsChangedEvent;
+import com.jung.springbook.service.posts.PostsService;
+import com.jung.springbook.web.dto.PostsSaveRequestDto;
+import com.jung.springbook.web.dto.PostsSearchResponseDto;
+import com.jung.springbook.web.dto.PostsUpdateRequestDto;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * (1) 제목에 검색어가 있는 게시글이
+ * 본문에만 있는 게시글보다 먼저 나오는지(관련도 정렬) 확인한다.
+ *
+ * (2) 수정/삭제는
+ * PostsService 를 통해서 커밋되면 다시 색인하지 않아도 검색 결과에 반영된다. reopen 은 백그라운드에서 모아서 하므로 awaitRefresh 로 기다린다.
+ *
+ * (3) JDBC 로 직접 바꾼 게시글은
+ * 다른 인스턴스에서 바뀐 게시글처럼 이벤트가 오지 않으므로 reconcile 을 해야 검색 결과에 반영된다.
+ * 시퀀스로 받는 id 와 겹치지 않도록 큰 id 를 쓴다.
+ *
+ * (4) 없는 게시글의 수정 이벤트는
+ * 작성자를 찾지 못해 색인에 실패한다. 커밋 뒤에 실행되는 리스너이므로 예외가 요청까지 올라가면 안 된다.
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest
+public class PostsSearchServiceTest {
+
+    @Autowired
+    PostsSearchService postsSearchService;
+
+    @Autowired
+    PostsService postsService;
+
+    @Autowired
+    PostsRepository postsRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    public void cleanup() throws Exception {
+        postsRepository.deleteAllInBatch();
+        postsSearchService.rebuild();
+    }
+
+    @Test
+    public void 한국어_검색어로_관련도순_검색된다() throws Exception {
+        // given
+        Long contentOnly = save("자바 이야기", "스프링 부트로 시작하는 웹 서비스를 만들었다");
+        Long inTitle = save("스프링 입문", "처음 만드는 게시판");
+
+        // when
+        List<PostsSearchResponseDto> results = postsSearchService.search("스프링", 0, 10);
+
+        // then
+        assertThat(results).extracting(PostsSearchResponseDto::getId).containsExactly(inTitle, contentOnly); // (1)
+    }
+
+    @Test
+    public void 수정_삭제가_색인에_반영된다() throws Exception {
+        // given
+        Long id = save("스프링 입문", "처음 만드는 게시판");
+
+        // when
+        postsService.update(id, PostsUpdateRequestDto.builder()
+                                                    .title("자바 입문")
+                                                    .content("처음 만드는 게시판")
+                                                    .build());
+        postsSearchService.awaitRefresh();
+
+        // then
+        assertThat(postsSearchService.search("스프링", 0, 10)).isEmpty(); // (2)
+        List<PostsSearchResponseDto> results = postsSearchService.search("자바", 0, 10);
+        assertThat(results).extracting(PostsSearchResponseDto::getAuthor).containsExactly("author");
+
+        postsService.delete(id);
+        postsSearchService.awaitRefresh();
+        assertThat(postsSearchService.search("자바", 0, 10)).isEmpty();
+    }
+
+    @Test
+    public void 결과는_페이지_단위로_나뉜다() throws Exception {
+        // given
+        for (int i = 0; i < 5; i++) {
+            save("게시판 " + i, "페이징 테스트");
+        }
+
+        // when
+        List<PostsSearchResponseDto> first = postsSearchService.search("페이징", 0, 2);
+        List<PostsSearchResponseDto> last = postsSearchService.search("페이징", 2, 2);
+
+        // then
+        assertThat(first).hasSize(2);
+        assertThat(last).hasSize(1);
+    }
+
+    @Test
+    public void 너무_뒤의_페이지는_검색하지_않는다() throws Exception {
+        // given
+        save("게시판", "페이징 테스트");
+
+        // when, then
+        assertThat(postsSearchService.search("페이징", 100, 100)).isEmpty();
+        assertThatThrownBy(() -> postsSearchService.search("페이징", Integer.MAX_VALUE, 100)).isInstanceOf(PostsSearchPageException.class);
+    }
+
+    @Test
+    public void reconcile_하면_이벤트_없이_바뀐_게시글이_반영된다() throws Exception {
+        // given
+        Long deleted = save("스프링 입문", "처음 만드는 게시판");
+        jdbcTemplate.update("DELETE FROM posts WHERE id = ?", deleted); // (3)
+        jdbcTemplate.update("INSERT INTO posts (id, title, content, author, created_date, modified_date) VALUES (?, ?, ?, ?, ?, ?)",
+                4_000_000L, "다른 인스턴스의 스프링 글", "content", "author", LocalDateTime.now(), LocalDateTime.now());
+
+        // when
+        postsSearchService.reconcile();
+
+        // then
+        assertThat(postsSearchService.search("스프링", 0, 10)).extracting(PostsSearchResponseDto::getId).containsExactly(4_000_000L);
+    }
+
+    @Test
+    public void 색인에_실패해도_커밋된_변경에_예외를_던지지_않는다(){
+        // when, then
+        assertThatCode(() -> postsSearchService.onPostsChanged(PostsChangedEvent.updated(-1L, "title", "content", LocalDateTime.now()))) // (4)
+                .doesNotThrowAnyException();
+    }
+
+    private Long save(String title, String content) throws InterruptedException {
+        Long id = postsService.save(PostsSaveRequestDto.builder()
+                                                    .title(title)
+                                                    .content(content)
+                                                    .author("author")
+                                                    .build());
+        postsSearchService.awaitRefresh();
+        return id;
+    }
+}
@@ -0,0 +1,103 @@
+package com.jung.springbook.service.user;
+
+import com.jung.springbook.config.CacheConfig;
+import com.jung.springbook.config.auth.dto.OAuthAttributes;
+import com.jung.springbook.domain.user.Role;
+import com.jung.springbook.domain.user.User;
+import com.jung.springbook.domain.user.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * (1) modifiedDate 는
+ * UPDATE 가 나갈 때만 JPA Auditing 으로 바뀐다. 값이 그대로면 쓰기가 없었다는 뜻이다.
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest
+public class UserServiceTest {
+
+    @Autowired
+    UserService userService;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    CacheManager cacheManager;
+
+    @AfterEach
+    public void cleanup(){
+        userRepository.deleteAllInBatch();
+        cacheManager.getCache(CacheConfig.USER_IDS).clear();
+    }
+
+    @Test
+    public void 프로필이_그대로면_사용자를_수정하지_않는다(){
+        // given
+        User saved = userService.saveOrUpdate(attributes("name", "picture"));
+        LocalDateTime modifiedDate = userRepository.findById(saved.getId()).get().getModifiedDate();
+
+        // when
+        User user = userService.saveOrUpdate(attributes("name", "picture"));
+
+        // then
+        assertThat(user.getId()).isEqualTo(saved.getId());
+        assertThat(userRepository.findById(saved.getId()).get().getModifiedDate()).isEqualTo(modifiedDate); // (1)
+        assertThat(cacheManager.getCache(CacheConfig.USER_IDS).get("user@test.com", Long.class)).isEqualTo(saved.getId());
+    }
+
+    @Test
+    public void 프로필이_바뀌면_사용자를_수정한다(){
+        // given
+        User saved = userService.saveOrUpdate(attributes("name", "picture"));
+
+        // when
+        userService.saveOrUpdate(attributes("name2", "picture2"));
+
+        // then
+        User user = userRepository.findById(saved.getId()).get();
+        assertThat(user.getName()).isEqualTo("name2");
+        assertThat(user.getPicture()).isEqualTo("picture2");
+        assertThat(userRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    public void 같은_이메일은_두번_등록되지_않는다(){
+        // given
+        userRepository.save(User.builder()
+                .name("name")
+                .email("user@test.com")
+                .role(Role.GUEST)
+                .build());
+
+        // when, then
+        assertThatThrownBy(() -> userRepository.save(User.builder()
+                .name("name")
+                .email("user@test.com")
+                .role(Role.GUEST)
+                .build()))
+                .isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    private OAuthAttributes attributes(String name, String picture) {
+        return OAuthAttributes.builder()
+                .attributes(Collections.emptyMap())
+                .nameAttributeKey("sub")
+                .name(name)
+                .email("user@test.com")
+                .picture(picture)
+                .build();
+    }
+}
@@ -1,12 +1,26 @@
 package com.jung.springbook.web;
 
+import com.jung.springbook.config.CacheConfig;
+import com.jung.springbook.domain.posts.PostsRepository;
+import com.jung.springbook.service.posts.PostsService;
+import com.jung.springbook.web.dto.PostsSaveRequestDto;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
 
@@ -17,6 +31,14 @@ import static org.springframework.boot.test.context.SpringBootTest.WebEnvironmen
  * (2) contains 는
  * 포함되어 있는지 체크.
  *
+ * (3) postsTable 캐시는
+ * 첫 요청에 렌더링된 목록이 담기고, 게시글이 등록되면 커밋 후 비워져서 다음 요청에 새 목록이 렌더링된다.
+ *
+ * (4) 해시가 붙은 URL 은
+ * 내용이 바뀌면 URL 이 바뀌므로 브라우저가 1년 동안 다시 요청하지 않는다. 해시가 없는 예전 URL 은 매번 다시 확인한다.
+ *
+ * (5) 목록은
+ * 삭제해도 가장 최근 수정일이 그대로이므로 Last-Modified 를 주지 않는다. 삭제 후에는 이전 ETag 로 요청해도 304 가 아니어야 한다.
  */
 @ExtendWith(SpringExtension.class)
 @SpringBootTest(webEnvironment = RANDOM_PORT)
@@ -25,6 +47,21 @@ public class IndexControllerTest {
     @Autowired
     private TestRestTemplate restTemplate;
 
+    @Autowired
+    private PostsService postsService;
+
+    @Autowired
+    private PostsRepository postsRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @AfterEach
+    public void cleanup(){
+        postsRepository.deleteAllInBatch();
+        cacheManager.getCache(CacheConfig.POSTS_TABLE).clear();
+    }
+
     @Test
     public void 메인페이지_로딩(){
 
@@ -34,4 +71,78 @@ public class IndexControllerTest {
         // then
         // assertThat(body).contains("스프링 부트로 시작하는 웹 서비스"); // (2)
     }
+
+    @Test
+    public void 게시글_목록은_캐시되고_게시글이_등록되면_다시_렌더링된다(){
+
+        // given
+        postsService.save(PostsSaveRequestDto.builder()
+                .title("첫번째 게시글")
+                .content("content")
+                .author("author")
+                .build());
+
+        String first = this.restTemplate.getForObject("/", String.class);
+
+        // when
+        postsService.save(PostsSaveRequestDto.builder()
+                .title("두번째 게시글")
+                .content("content")
+                .author("author")
+                .build());
+
+        String second = this.restTemplate.getForObject("/", String.class);
+
+        // then
+        assertThat(first).contains("첫번째 게시글").doesNotContain("두번째 게시글");
+        assertThat(second).contains("첫번째 게시글", "두번째 게시글");
+        assertThat(cacheManager.getCache(CacheConfig.POSTS_TABLE).get("first")).isNotNull(); // (3)
+    }
+
+    @Test
+    public void 게시글이_삭제되면_목록은_304로_재사용되지_않는다(){
+
+        // given
+        postsService.save(PostsSaveRequestDto.builder()
+                .title("첫번째 게시글")
+                .content("content")
+                .author("author")
+                .build());
+        Long id = postsService.save(PostsSaveRequestDto.builder()
+                .title("두번째 게시글")
+                .content("content")
+                .author("author")
+                .build());
+        ResponseEntity<String> first = this.restTemplate.getForEntity("/", String.class);
+
+        // when
+        postsService.delete(id);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfNoneMatch(first.getHeaders().getETag());
+        ResponseEntity<String> second = this.restTemplate.exchange("/", HttpMethod.GET, new HttpEntity<>(headers), String.class);
+
+        // then
+        assertThat(first.getHeaders().getLastModified()).isEqualTo(-1); // (5)
+        assertThat(second.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(second.getBody()).contains("첫번째 게시글").doesNotContain("두번째 게시글");
+    }
+
+    @Test
+    public void 정적_파일은_내용_해시가_붙은_URL로_오래_캐시된다(){
+
+        // given
+        String body = this.restTemplate.getForObject("/", String.class);
+        Matcher matcher = Pattern.compile("/js/app/index-[0-9a-f]{32}\\.js").matcher(body);
+        assertThat(matcher.find()).isTrue();
+
+        // when
+        ResponseEntity<String> versioned = this.restTemplate.getForEntity(matcher.group(), String.class);
+        ResponseEntity<String> original = this.restTemplate.getForEntity("/js/app/index.js", String.class);
+
+        // then
+        assertThat(versioned.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(versioned.getHeaders().getCacheControl()).contains("max-age=31536000", "immutable"); // (4)
+        assertThat(original.getHeaders().getCacheControl()).contains("no-cache");
+    }
 }
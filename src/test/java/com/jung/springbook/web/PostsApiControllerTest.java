@@ -15,6 +15,7 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.client.TestRestTemplate;
 import org.springframework.boot.web.server.LocalServerPort;
 import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
@@ -22,11 +23,15 @@ import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.context.WebApplicationContext;
 import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
 
 /**
  * (1) @SpringBootTest 는
@@ -184,4 +189,164 @@ public class PostsApiControllerTest {
         assertThat(all.size()).isEqualTo(0);
     }
 
+    @Test
+    @WithMockUser(roles="USER")
+    public void Posts_전체가_NDJSON으로_내보내진다() throws Exception{
+
+        // given
+        for (int i = 0; i < 3; i++) {
+            postsRepository.save(Posts.builder()
+                    .title("title" + i)
+                    .content("content" + i)
+                    .author("author")
+                    .build());
+        }
+
+        String url = "http://localhost:" + port + "/api/v1/posts/export";
+
+        // when
+        String body = mvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/x-ndjson"))
+                .andReturn().getResponse().getContentAsString();
+
+        // then
+        String[] lines = body.split("\n");
+        assertThat(lines).hasSize(3);
+        assertThat(new ObjectMapper().readTree(lines[0]).get("title").asText()).isEqualTo("title0");
+    }
+
+    @Test
+    @WithMockUser(roles="USER")
+    public void Posts_여러건이_한번에_등록된다() throws Exception{
+
+        // given
+        List<PostsSaveRequestDto> requestDtos = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            requestDtos.add(PostsSaveRequestDto.builder()
+                    .title("title" + i)
+                    .content("content" + i)
+                    .author("author")
+                    .build());
+        }
+
+        String url = "http://localhost:" + port + "/api/v1/posts/batch";
+
+        // when
+        String body = mvc.perform(post(url)
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content(new ObjectMapper().writeValueAsString(requestDtos)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        // then
+        Long[] ids = new ObjectMapper().readValue(body, Long[].class);
+        assertThat(ids).hasSize(120).doesNotHaveDuplicates();
+
+        List<Posts> all = postsRepository.findAll();
+        assertThat(all).hasSize(120);
+        assertThat(all).extracting(Posts::getTitle).contains("title0", "title119");
+    }
+
+    @Test
+    @WithMockUser(roles="USER")
+    public void 변경되지_않은_Posts는_304로_응답한다() throws Exception{
+
+        // given
+        Posts savedPosts = postsRepository.save(Posts.builder()
+                .title("title")
+                .content("content")
+                .author("author")
+                .build());
+
+        String url = "http://localhost:" + port + "/api/v1/posts/" + savedPosts.getId();
+
+        String etag = mvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        // when
+        String notModifiedBody = mvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andReturn().getResponse().getContentAsString();
+
+        mvc.perform(put(url)
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content(new ObjectMapper().writeValueAsString(PostsUpdateRequestDto.builder()
+                        .title("title2")
+                        .content("content2")
+                        .build())))
+                .andExpect(status().isOk());
+
+        // then
+        assertThat(etag).isNotBlank();
+        assertThat(notModifiedBody).isEmpty();
+
+        mvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("title2")));
+    }
+
+    @Test
+    @WithMockUser(roles="USER")
+    public void 이전_버전으로_수정하면_409로_응답한다() throws Exception{
+
+        // given
+        Posts savedPosts = postsRepository.save(Posts.builder()
+                .title("title")
+                .content("content")
+                .author("author")
+                .build());
+
+        String url = "http://localhost:" + port + "/api/v1/posts/" + savedPosts.getId();
+        String etag = mvc.perform(get(url))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        String requestBody = new ObjectMapper().writeValueAsString(PostsUpdateRequestDto.builder()
+                .title("title2")
+                .content("content2")
+                .build());
+
+        // when
+        mvc.perform(put(url)
+                .header(HttpHeaders.IF_MATCH, etag)
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content(requestBody))
+                .andExpect(status().isOk());
+
+        // then
+        mvc.perform(put(url)
+                .header(HttpHeaders.IF_MATCH, etag)
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content(requestBody))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    @WithMockUser(roles="USER")
+    public void 없는_Posts는_404로_응답한다() throws Exception{
+
+        // given
+        String url = "http://localhost:" + port + "/api/v1/posts/-1";
+
+        // when, then
+        mvc.perform(get(url))
+                .andExpect(status().isNotFound())
+                .andExpect(content().string(containsString("id = -1")));
+
+        mvc.perform(delete(url))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @WithMockUser(roles="USER")
+    public void 너무_뒤의_검색_페이지는_400으로_응답한다() throws Exception{
+
+        // given
+        String url = "http://localhost:" + port + "/api/v1/posts/search";
+
+        // when, then
+        mvc.perform(get(url).param("q", "스프링").param("page", String.valueOf(Integer.MAX_VALUE)))
+                .andExpect(status().isBadRequest());
+    }
 }
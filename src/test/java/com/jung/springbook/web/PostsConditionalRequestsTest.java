@@ -0,0 +1,50 @@
+package com.jung.springbook.web;
+
+import com.jung.springbook.web.dto.PostsListVersionDto;
+import com.jung.springbook.web.dto.PostsVersionDto;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * (1) indexJs 는
+ * 배포 전후에 해시가 달라진 index.js URL 이다. 게시글이 그대로여도 화면의 ETag 는 달라야 한다.
+ */
+class PostsConditionalRequestsTest {
+
+    private static final String BEFORE_DEPLOY = "/js/app/index-0123456789abcdef0123456789abcdef.js";
+    private static final String AFTER_DEPLOY = "/js/app/index-fedcba9876543210fedcba9876543210.js";
+
+    @Test
+    public void 정적_파일_URL이_바뀌면_화면_ETag도_바뀐다(){
+        //given
+        PostsVersionDto posts = new PostsVersionDto(3L, LocalDateTime.now());
+        PostsListVersionDto list = new PostsListVersionDto(10L, LocalDateTime.now());
+
+        //when
+        String postsBefore = PostsConditionalRequests.postsPageETag(1L, posts, BEFORE_DEPLOY); // (1)
+        String postsAfter = PostsConditionalRequests.postsPageETag(1L, posts, AFTER_DEPLOY);
+        String listBefore = PostsConditionalRequests.listETag(list, null, null, BEFORE_DEPLOY);
+        String listAfter = PostsConditionalRequests.listETag(list, null, null, AFTER_DEPLOY);
+
+        //then
+        assertThat(postsAfter).isNotEqualTo(postsBefore);
+        assertThat(listAfter).isNotEqualTo(listBefore);
+        assertThat(PostsConditionalRequests.postsPageETag(1L, posts, BEFORE_DEPLOY)).isEqualTo(postsBefore);
+    }
+
+    @Test
+    public void 화면의_Last_Modified는_정적_파일이_바뀐_시각보다_이르지_않다(){
+        //given
+        LocalDateTime deployed = LocalDateTime.of(2021, 1, 10, 12, 0);
+        LocalDateTime beforeDeploy = deployed.minusDays(1);
+        LocalDateTime afterDeploy = deployed.plusDays(1);
+
+        //when, then
+        assertThat(PostsConditionalRequests.pageLastModified(beforeDeploy, deployed)).isEqualTo(deployed);
+        assertThat(PostsConditionalRequests.pageLastModified(afterDeploy, deployed)).isEqualTo(afterDeploy);
+        assertThat(PostsConditionalRequests.pageLastModified(null, deployed)).isEqualTo(deployed);
+    }
+}
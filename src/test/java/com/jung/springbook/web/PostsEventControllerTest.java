@@ -0,0 +1,88 @@
+package com.jung.springbook.web;
+
+import com.jung.springbook.domain.posts.PostsRepository;
+import com.jung.springbook.service.posts.PostsService;
+import com.jung.springbook.web.dto.PostsSaveRequestDto;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+/**
+ * (1) asyncStarted 는
+ * 요청 스레드가 응답을 끝내지 않고 비동기로 넘겼다는 뜻이다. 이후의 이벤트는 응답이 열린 채로 계속 쓰인다.
+ *
+ * (2) 이벤트는
+ * 커밋 후 별도 스레드에서 보내지므로 응답에 쓰일 때까지 잠시 기다린다.
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest
+public class PostsEventControllerTest {
+
+    @Autowired
+    private WebApplicationContext context;
+
+    @Autowired
+    private PostsService postsService;
+
+    @Autowired
+    private PostsRepository postsRepository;
+
+    private MockMvc mvc;
+
+    @BeforeEach
+    public void setup(){
+        mvc = MockMvcBuilders
+                .webAppContextSetup(context)
+                .apply(springSecurity())
+                .build();
+    }
+
+    @AfterEach
+    public void cleanup(){
+        postsRepository.deleteAllInBatch();
+    }
+
+    @Test
+    public void 로그인하지_않아도_게시글_등록_이벤트를_받는다() throws Exception {
+        // given
+        MvcResult result = mvc.perform(get("/posts/events"))
+                .andExpect(request().asyncStarted()) // (1)
+                .andExpect(header().string("X-Accel-Buffering", "no"))
+                .andReturn();
+
+        // when
+        Long id = postsService.save(PostsSaveRequestDto.builder()
+                .title("실시간 게시글")
+                .content("content")
+                .author("author")
+                .build());
+
+        // then
+        MockHttpServletResponse response = result.getResponse();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!response.getContentAsString(StandardCharsets.UTF_8).contains("event:created") && System.currentTimeMillis() < deadline) { // (2)
+            Thread.sleep(50);
+        }
+
+        String body = response.getContentAsString(StandardCharsets.UTF_8);
+        assertThat(body).contains("event:created");
+        assertThat(body).contains("\"id\":" + id, "실시간 게시글");
+    }
+}
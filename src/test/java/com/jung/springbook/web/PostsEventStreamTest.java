@@ -0,0 +1,66 @@
+package com.jung.springbook.web;
+
+import com.jung.springbook.service.posts.PostsChangedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.concurrent.Executor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * (1) stalled 는
+ * 보내는 작업을 실행하지 않는 Executor 이다. 네트워크가 막혀서 이벤트를 하나도 못 받는 느린 구독자와 같다.
+ *
+ * (2) 드레인이 취소되어
+ * readiness 가 다시 ACCEPTING_TRAFFIC 이 되면 새 구독을 받아야 한다.
+ */
+public class PostsEventStreamTest {
+
+    @Test
+    public void 느린_구독자는_버퍼가_차면_연결을_끊는다(){
+        // given
+        Executor stalled = task -> { }; // (1)
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        PostsEventStream stream = new PostsEventStream(Jackson2ObjectMapperBuilder.json().build(), meterRegistry,
+                2, 100, Duration.ofMinutes(1), stalled);
+        stream.subscribe();
+
+        // when
+        stream.onPostsChanged(PostsChangedEvent.deleted(1L));
+        stream.onPostsChanged(PostsChangedEvent.deleted(2L));
+        int beforeOverflow = stream.getSubscriberCount();
+        stream.onPostsChanged(PostsChangedEvent.deleted(3L));
+
+        // then
+        assertThat(beforeOverflow).isEqualTo(1);
+        assertThat(stream.getSubscriberCount()).isEqualTo(0);
+        assertThat(meterRegistry.counter("posts.events.dropped").count()).isEqualTo(1);
+    }
+
+    @Test
+    public void 드레인이_취소되면_다시_구독을_받는다(){
+        // given
+        PostsEventStream stream = new PostsEventStream(Jackson2ObjectMapperBuilder.json().build(), new SimpleMeterRegistry(),
+                2, 100, Duration.ofMinutes(1), task -> { });
+        stream.subscribe();
+
+        // when
+        stream.onReadinessChanged(new AvailabilityChangeEvent<>(this, ReadinessState.REFUSING_TRAFFIC));
+        int afterDrain = stream.getSubscriberCount();
+        assertThatThrownBy(stream::subscribe).isInstanceOf(ResponseStatusException.class);
+
+        stream.onReadinessChanged(new AvailabilityChangeEvent<>(this, ReadinessState.ACCEPTING_TRAFFIC)); // (2)
+        stream.subscribe();
+
+        // then
+        assertThat(afterDrain).isEqualTo(0);
+        assertThat(stream.getSubscriberCount()).isEqualTo(1);
+    }
+}